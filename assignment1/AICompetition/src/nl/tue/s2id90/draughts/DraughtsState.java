@@ -99,8 +99,11 @@ public class DraughtsState implements GameState<Move> {
     
     
     /**
-     *
-     * @return
+     * The moves are a copy of the list of the move generator: the generator
+     * clears the list it returned before when it generates the moves of the
+     * next position, which would empty lists that callers still use.
+     * @return the legal moves of this state; the list is shared with the state,
+     *         so callers must not change it: copy it to shuffle or sort it
      */
     @Override
     public List<Move> getMoves() {
@@ -0,0 +1,21 @@
+package nl.tue.s2id90.game;
+
+import java.util.Map;
+
+/**
+ * Optional interface for a Player that counts what its search does, so that
+ * tournaments can compare the players (or versions of a player) on more than
+ * their results. The counters must be summable over moves, e.g. nodes or
+ * milliseconds, not rates. By convention "nodes" counts the searched
+ * positions and "timeMs" the search time, from which the OfflineTournament
+ * computes the nodes per second.
+ *
+ * @author huub
+ */
+public interface Instrumented {
+    /**
+     * @return the counters of the last computed move, by name; the map is
+     * not changed by later moves.
+     */
+    Map<String, Long> getStatistics();
+}
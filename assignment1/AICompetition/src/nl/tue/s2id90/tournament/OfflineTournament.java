@@ -12,6 +12,7 @@ import java.util.Calendar;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -46,6 +47,7 @@ import nl.tue.s2id90.draughts.DraughtsState;
 import nl.tue.s2id90.draughts.player.DraughtsPlayer;
 import nl.tue.s2id90.draughts.player.HumanPlayer;
 import nl.tue.s2id90.game.GameState;
+import nl.tue.s2id90.game.Instrumented;
 import nl.tue.s2id90.game.Player;
 import org10x10.dam.game.Move;
 
@@ -131,7 +133,10 @@ public class OfflineTournament<P extends Player<M,S>, PP extends PlayerProvider<
                         ""+result.getR0()+" - " + result.getR1(), 
                         result.getP0().getName(), result.getP1().getName()
                 )                    
-            ).collect(Collectors.toList());               // collect all results in a list
+            ).peek(result-> {                             // print search statistics, if any
+                printStatistics("white "+result.getP0().getName(), result.getStatistics0());
+                printStatistics("black "+result.getP1().getName(), result.getStatistics1());
+            }).collect(Collectors.toList());               // collect all results in a list
         
         // print statistics
         System.err.println("\n# stats 1 ----------------------------------------");
@@ -146,6 +151,10 @@ public class OfflineTournament<P extends Player<M,S>, PP extends PlayerProvider<
         String stats = statistics3(results);
         System.err.println(stats);
         
+        // print search statistics per player
+        System.err.println("\n# stats 4 ----------------------------------------");
+        statistics4(results);
+        
         // zip tournament results and stats
         try {
             toZip(results,stats);
@@ -167,16 +176,19 @@ public class OfflineTournament<P extends Player<M,S>, PP extends PlayerProvider<
         List<M> moves = new ArrayList<>(); // start with empty move list
         int index = atomicIndex.addAndGet(1);               // increase match index
         int moveCount=0;                   // number of moves made
+        Map<String,Long> statistics0 = new LinkedHashMap<>();  // search statistics of p0
+        Map<String,Long> statistics1 = new LinkedHashMap<>();  // and of p1, summed over the game
         while (moveCount<maxMove && !state.isEndState()) {
             P player = (state.isWhiteToMove()?p0:p1);                // current player
             M move = getComputerMove(player, state, maxTimeinMS);    // get move 
+            addStatistics(state.isWhiteToMove()?statistics0:statistics1, player);
             
             // check for illegal moves
             if (move==null||!state.getMoves().contains(move)) { // illegal move
                 // player who tried to make the illegal move, looses the game
                 return state.isWhiteToMove()
-                        ? Result.of(index, p0, p1, moves, 0, 2, false)
-                        : Result.of(index, p0, p1, moves, 2, 0, false);
+                        ? Result.of(index, p0, p1, moves, 0, 2, false).withStatistics(statistics0, statistics1)
+                        : Result.of(index, p0, p1, moves, 2, 0, false).withStatistics(statistics0, statistics1);
             }
             
             // store move and play it
@@ -189,10 +201,10 @@ public class OfflineTournament<P extends Player<M,S>, PP extends PlayerProvider<
         
         if (state.isEndState()) { // player who is to move, looses the game
                 return state.isWhiteToMove()
-                        ? Result.of(index, p0, p1, moves, 0, 2, false)
-                        : Result.of(index, p0, p1, moves, 2, 0, false);
+                        ? Result.of(index, p0, p1, moves, 0, 2, false).withStatistics(statistics0, statistics1)
+                        : Result.of(index, p0, p1, moves, 2, 0, false).withStatistics(statistics0, statistics1);
         } else {                  // maxMove count reached and then game is a draw
-                return  Result.of(index, p0, p1, moves, 1, 1, true);
+                return  Result.of(index, p0, p1, moves, 1, 1, true).withStatistics(statistics0, statistics1);
         }
     }
     
@@ -228,6 +240,46 @@ public class OfflineTournament<P extends Player<M,S>, PP extends PlayerProvider<
         return (M)moves[0];
     }
     
+    /** adds the statistics of the last move of player, if it has any, to total. **/
+    private void addStatistics(Map<String,Long> total, P player) {
+        if (player instanceof Instrumented) {
+            ((Instrumented)player).getStatistics().forEach((k,v) -> total.merge(k, v, Long::sum));
+        }
+    }
+    
+    /** prints search statistics like:
+     * <pre>
+#      white MyDraughtsPlayerV2  nodes=2417323 qnodes=1203321 ... timeMs=9821 nps=246138
+     * </pre>
+     * The nodes per second are added if there are "nodes" and "timeMs" counters.
+     * Nothing is printed if there are no statistics.
+     */
+    private void printStatistics(String name, Map<String,Long> statistics) {
+        if (statistics.isEmpty()) return;
+        String counters = statistics.entrySet().stream()
+                .map(e -> e.getKey()+"="+e.getValue())
+                .collect(Collectors.joining(" "));
+        Long nodes = statistics.get("nodes"), time = statistics.get("timeMs");
+        if (nodes!=null && time!=null && time>0) {
+            counters += " nps="+(1000*nodes/time);
+        }
+        System.err.format("#%30s  %s\n", name, counters);
+    }
+    
+    /** 
+     * prints per player the search statistics summed over all its games,
+     * to compare (versions of) players on how fast and how well they search.
+     * @param results  list of tournament results.
+     */
+    private void statistics4(List<Result<P,M>> results) {
+        Map<P, Map<String,Long>> totals = new LinkedHashMap<>();
+        for (Result<P,M> r : results) {
+            r.getStatistics0().forEach((k,v) -> totals.computeIfAbsent(r.getP0(), p->new LinkedHashMap<>()).merge(k, v, Long::sum));
+            r.getStatistics1().forEach((k,v) -> totals.computeIfAbsent(r.getP1(), p->new LinkedHashMap<>()).merge(k, v, Long::sum));
+        }
+        totals.forEach((p,statistics) -> printStatistics(p.getName(), statistics));
+    }
+    
     private String className(String name) {
         int i = name.lastIndexOf(".");
         return name.substring(i+1);
@@ -1,6 +1,8 @@
 package nl.tue.s2id90.tournament;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import lombok.Getter;
 
 /**
@@ -17,6 +19,8 @@ class Result<P,M> {
     @Getter private List<M> moves;
     @Getter private int r0, r1; // result for p0 and p1, respectively
     @Getter private boolean maxMoveReached;
+    @Getter private Map<String,Long> statistics0 = Collections.emptyMap(),  // search statistics of p0,
+                                     statistics1 = Collections.emptyMap();  // and of p1, summed over the game
     
     public Row white() {
         Row row = new Row();
@@ -49,5 +53,18 @@ class Result<P,M> {
         r.p0=p0; r.p1=p1; r.r0=r0; r.moves = moves; r.r1=r1; r.maxMoveReached = maxMoveReached;
         return r;
     }
+    
+    /**
+     * sets the search statistics of the players.
+     * @param statistics0  statistics of the white player, summed over its moves
+     * @param statistics1  statistics of the black player
+     * @return this result
+     * @see nl.tue.s2id90.game.Instrumented
+     */
+    public Result<P,M> withStatistics(Map<String,Long> statistics0, Map<String,Long> statistics1) {
+        this.statistics0 = statistics0;
+        this.statistics1 = statistics1;
+        return this;
+    }
 }
 //</editor-fold>
@@ -0,0 +1,176 @@
+package nl.tue.s2id90.group105;
+
+/**
+ * Evaluation terms computed on bitboards, the long masks of EvalState in
+ * which bit f stands for field f. Every term is a popcount of the pieces
+ * masked with a precomputed mask; only the runaway and outpost terms need a
+ * mask per man.
+ *
+ * <p>
+ * Field f is on row (f - 1) / 5 of the board, counted from black's side;
+ * white men move towards row 0, black men towards row 9.
+ * </p>
+ */
+public final class Bitboards {
+    /** the fields where the men of a player start out: white 46-50, black 1-5. **/
+    public static final long WHITE_BACK_RANK = rowMask(9), BLACK_BACK_RANK = rowMask(0);
+
+    /** the six fields in the centre of the board. **/
+    public static final long CENTRE = bits(22, 23, 24, 27, 28, 29);
+
+    /** TEMPO_ROW[r] has the fields on row r; the tempo of a man is a weight per row. **/
+    private static final long[] TEMPO_ROW = new long[10];
+
+    /**
+     * WHITE_CONE[f] has the fields that a white man on f can still reach on
+     * its way to promotion; BLACK_CONE likewise for a black man.
+     */
+    private static final long[] WHITE_CONE = new long[51], BLACK_CONE = new long[51];
+
+    /**
+     * WHITE_SUPPORT[f] has the two fields diagonally behind field f, from
+     * white's point of view; 0 if f is on the edge. BLACK_SUPPORT likewise.
+     */
+    private static final long[] WHITE_SUPPORT = new long[51], BLACK_SUPPORT = new long[51];
+
+    /** the men that are at most this many rows from promotion can be runaways. **/
+    static final int RUNAWAY_ROWS = 3;
+
+    static {
+        for (int f = 1; f <= 50; f++) {
+            int row = row(f), col = column(f);
+            TEMPO_ROW[row] |= 1L << f;
+            for (int r = 0; r < 10; r++) {
+                for (int c = 0; c < 10; c++) {
+                    int g = field(r, c);
+                    int distance = Math.abs(row - r);
+                    if (g != 0 && Math.abs(col - c) <= distance) {
+                        if (r < row) {
+                            WHITE_CONE[f] |= 1L << g;
+                        } else if (r > row) {
+                            BLACK_CONE[f] |= 1L << g;
+                        }
+                    }
+                }
+            }
+            WHITE_SUPPORT[f] = support(row + 1, col);
+            BLACK_SUPPORT[f] = support(row - 1, col);
+        }
+    }
+
+    private Bitboards() { }
+
+    //<editor-fold defaultstate="collapsed" desc="board geometry">
+    /** @return row of field f, 0 (fields 1-5) to 9 (fields 46-50). **/
+    static int row(int f) {
+        return (f - 1) / 5;
+    }
+
+    /** @return column of field f, 0 to 9. **/
+    static int column(int f) {
+        int row = row(f);
+        return 2 * ((f - 1) % 5) + (row % 2 == 0 ? 1 : 0);
+    }
+
+    /** @return the field on row r and column c, or 0 if there is none. **/
+    static int field(int r, int c) {
+        if (r < 0 || r > 9 || c < 0 || c > 9 || (r + c) % 2 == 0) {
+            return 0;
+        }
+        return 5 * r + c / 2 + 1;
+    }
+
+    /** @return the fields on row r, c - 1 and c + 1, or 0 if one of them is missing. **/
+    private static long support(int r, int c) {
+        int left = field(r, c - 1), right = field(r, c + 1);
+        return left == 0 || right == 0 ? 0L : 1L << left | 1L << right;
+    }
+
+    private static long rowMask(int r) {
+        long mask = 0L;
+        for (int c = 0; c < 10; c++) {
+            int f = field(r, c);
+            if (f != 0) {
+                mask |= 1L << f;
+            }
+        }
+        return mask;
+    }
+
+    private static long bits(int... fields) {
+        long mask = 0L;
+        for (int f : fields) {
+            mask |= 1L << f;
+        }
+        return mask;
+    }
+    //</editor-fold>
+
+    /** @return the fields on row r, 0 &lt;= r &lt;= 9; see TEMPO_ROW. **/
+    public static long tempoRow(int r) {
+        return TEMPO_ROW[r];
+    }
+
+    /**
+     * @return number of white men that have no black piece in front of them
+     * and are at most RUNAWAY_ROWS rows from promotion.
+     */
+    public static int whiteRunaways(long whiteMen, long black) {
+        int n = 0;
+        for (long men = whiteMen & rowsUpTo(RUNAWAY_ROWS); men != 0; men &= men - 1) {
+            if ((WHITE_CONE[Long.numberOfTrailingZeros(men)] & black) == 0) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return number of black men that have no white piece in front of them
+     * and are at most RUNAWAY_ROWS rows from promotion.
+     */
+    public static int blackRunaways(long blackMen, long white) {
+        int n = 0;
+        for (long men = blackMen & ~rowsUpTo(8 - RUNAWAY_ROWS); men != 0; men &= men - 1) {
+            if ((BLACK_CONE[Long.numberOfTrailingZeros(men)] & white) == 0) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return number of white men on black's half of the board that are
+     * backed up by white men on both fields behind them.
+     */
+    public static int whiteOutposts(long whiteMen, long white) {
+        int n = 0;
+        for (long men = whiteMen & rowsUpTo(4); men != 0; men &= men - 1) {
+            long support = WHITE_SUPPORT[Long.numberOfTrailingZeros(men)];
+            if (support != 0 && (white & support) == support) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return number of black men on white's half of the board that are
+     * backed up by black men on both fields behind them.
+     */
+    public static int blackOutposts(long blackMen, long black) {
+        int n = 0;
+        for (long men = blackMen & ~rowsUpTo(4); men != 0; men &= men - 1) {
+            long support = BLACK_SUPPORT[Long.numberOfTrailingZeros(men)];
+            if (support != 0 && (black & support) == support) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** @return the fields on rows 0 to r. **/
+    private static long rowsUpTo(int r) {
+        return ((1L << (5 * r + 6)) - 1) & ~1L;
+    }
+}
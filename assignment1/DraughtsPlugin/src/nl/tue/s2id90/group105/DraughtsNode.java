@@ -9,19 +9,33 @@ import org10x10.dam.game.Move;
  * it becomes a representation of a different node in the search tree.
  * The get/setBestMove methods are intended for storing/retrieving the best move
  * as it has been computed for the draughts state in this node.
+ * The node also carries the Zobrist key of its draughts state, which is
+ * updated incrementally when going from a node to a child node.
  * @author huub
  */
 public class DraughtsNode {
     private final DraughtsState state;
+    private final long hash;
     private Move move;
-    public DraughtsNode(DraughtsState s) {
+
+    /**
+     * @param s draughts state of this node
+     * @param hash Zobrist key of s, computed before any move is done on s
+     */
+    public DraughtsNode(DraughtsState s, long hash) {
         this.state = s;
+        this.hash = hash;
     }
     
     public DraughtsState getState() {
         return state;
     }
     
+    /** @return the Zobrist key of the draughts state of this node. **/
+    public long getHash() {
+        return hash;
+    }
+
     public void setBestMove(Move m) {
         this.move = m;
     }
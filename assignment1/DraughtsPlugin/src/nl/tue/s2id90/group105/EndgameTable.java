@@ -0,0 +1,436 @@
+package nl.tue.s2id90.group105;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import nl.tue.s2id90.draughts.DraughtsState;
+
+/**
+ * Endgame tablebase for killer draughts: the exact result of every position
+ * with at most getMaxPieces() pieces on the board, with the distance to the
+ * end of the game under best play.
+ *
+ * <p>
+ * The positions are grouped in slices by material: the number of white men,
+ * white kings, black men and black kings. Within a slice a position is
+ * indexed by the side to move and the combinatorial rank of the fields of
+ * every kind of piece. The value of a position is a byte: 0 for a draw,
+ * n &gt; 0 for a win in 2n - 1 plies and n &lt; 0 for a loss in 2(-n - 1)
+ * plies, for the player to move.
+ * </p>
+ *
+ * <p>
+ * The values of a slice are stored in blocks of BLOCK_SIZE values that are
+ * compressed separately, so that a probe only has to inflate one block. The
+ * file is memory mapped and recently used blocks are kept in a small
+ * direct-mapped cache that the threads of a search share without locks.
+ * File layout: magic, maximum number of pieces, number of slices; per slice
+ * its material and the offsets of its blocks; then the compressed blocks.
+ * </p>
+ *
+ * @see nl.tue.s2id90.group105.tools.EndgameTableBuilder
+ */
+public class EndgameTable {
+    private static final Logger LOG = Logger.getLogger(EndgameTable.class.getName());
+
+    /** returned by probe for positions that are not in the table. **/
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    /** number of values in a compressed block. **/
+    static final int BLOCK_SIZE = 1 << 14;
+
+    /** number of inflated blocks kept in the cache; a power of 2. **/
+    private static final int CACHE_BLOCKS = 256;
+
+    private static final int MAGIC = 0x4b445442;   // "KDTB"
+
+    /**
+     * the largest number of pieces that a table can have. With more pieces
+     * the index of a slice does not fit in an int (2 white men, 2 black men,
+     * a king each already has 2 * 3.75e9 positions).
+     */
+    public static final int MAX_PIECES = 5;
+
+    /** binomial coefficients C(n,k) for n <= 50, k <= MAX_PIECES. **/
+    private static final int[][] C = new int[51][MAX_PIECES + 1];
+
+    static {
+        for (int n = 0; n <= 50; n++) {
+            C[n][0] = 1;
+            for (int k = 1; k <= MAX_PIECES && k <= n; k++) {
+                C[n][k] = C[n - 1][k - 1] + (k < n ? C[n - 1][k] : 0);
+            }
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="slices">
+    /**
+     * The positions with a given material. Index i &lt; size()/2 is a
+     * position with white to move, the other half has black to move.
+     */
+    public static final class Slice {
+        public final int wm, wk, bm, bk;
+        /** number of positions per side to move; includes impossible ones. **/
+        private final int half;
+        /** offsets of the compressed blocks, in the file; one extra at the end. **/
+        private long[] blocks;
+        /** number of the first block of this slice in the block cache. **/
+        private int firstBlock;
+
+        /**
+         * @throws IllegalArgumentException if the slice has more than
+         * MAX_PIECES pieces.
+         */
+        public Slice(int wm, int wk, int bm, int bk) {
+            checkPieces(wm + wk + bm + bk);
+            this.wm = wm;
+            this.wk = wk;
+            this.bm = bm;
+            this.bk = bk;
+            this.half = C[50][wm] * C[50][wk] * C[50][bm] * C[50][bk];
+        }
+
+        /** @return number of indices of this slice. **/
+        public int size() {
+            return 2 * half;
+        }
+
+        /** @return whether it is white's move in the position with index i. **/
+        public boolean isWhiteToMove(int i) {
+            return i < half;
+        }
+
+        /**
+         * @param pieces board as returned by DraughtsState.getPieces(), with
+         * the material of this slice
+         * @return index of the position
+         */
+        public int index(int[] pieces, boolean whiteToMove) {
+            int rwm = 0, rwk = 0, rbm = 0, rbk = 0;
+            int nwm = 0, nwk = 0, nbm = 0, nbk = 0;
+            for (int f = 1; f <= 50; f++) {
+                switch (pieces[f]) {
+                    case DraughtsState.WHITEPIECE:
+                        rwm += C[f - 1][++nwm];
+                        break;
+                    case DraughtsState.WHITEKING:
+                        rwk += C[f - 1][++nwk];
+                        break;
+                    case DraughtsState.BLACKPIECE:
+                        rbm += C[f - 1][++nbm];
+                        break;
+                    case DraughtsState.BLACKKING:
+                        rbk += C[f - 1][++nbk];
+                        break;
+                }
+            }
+            int i = ((rwm * C[50][wk] + rwk) * C[50][bm] + rbm) * C[50][bk] + rbk;
+            return whiteToMove ? i : half + i;
+        }
+
+        /**
+         * Fills pieces (length 51) with the position of index i.
+         *
+         * @return false if i is not a legal position: two pieces on the same
+         * field, or a man on the row where it would have been promoted.
+         */
+        public boolean decode(int i, int[] pieces) {
+            Arrays.fill(pieces, DraughtsState.EMPTY);
+            i = i % half;
+            int rbk = i % C[50][bk];
+            i /= C[50][bk];
+            int rbm = i % C[50][bm];
+            i /= C[50][bm];
+            int rwk = i % C[50][wk];
+            int rwm = i / C[50][wk];
+            return place(rwm, wm, DraughtsState.WHITEPIECE, pieces)
+                    && place(rwk, wk, DraughtsState.WHITEKING, pieces)
+                    && place(rbm, bm, DraughtsState.BLACKPIECE, pieces)
+                    && place(rbk, bk, DraughtsState.BLACKKING, pieces);
+        }
+
+        /** puts k pieces on the fields with combinatorial rank r. **/
+        private static boolean place(int r, int k, int piece, int[] pieces) {
+            for (int n = 50; k > 0; k--) {
+                do {
+                    n--;
+                } while (C[n][k] > r);
+                r -= C[n][k];
+                int f = n + 1;
+                if (pieces[f] != DraughtsState.EMPTY
+                        || (piece == DraughtsState.WHITEPIECE && f <= 5)
+                        || (piece == DraughtsState.BLACKPIECE && f > 45)) {
+                    return false;
+                }
+                pieces[f] = piece;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%dwm%dwk-%dbm%dbk", wm, wk, bm, bk);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a table with maxPieces pieces is
+     * not supported.
+     */
+    public static void checkPieces(int maxPieces) {
+        if (maxPieces < 0 || maxPieces > MAX_PIECES) {
+            throw new IllegalArgumentException(String.format(
+                    "endgame tables with %d pieces are not supported; the maximum is %d",
+                    maxPieces, MAX_PIECES));
+        }
+    }
+
+    /** @return number of the slice with the given material, in bySignature. **/
+    private static int signature(int maxPieces, int wm, int wk, int bm, int bk) {
+        int n = maxPieces + 1;
+        return ((wm * n + wk) * n + bm) * n + bk;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="values">
+    /** value of a draw. **/
+    public static final byte DRAW = 0;
+
+    /** @return value of a win in plies (odd) plies. **/
+    public static byte win(int plies) {
+        return (byte) ((plies + 1) / 2);
+    }
+
+    /** @return value of a loss in plies (even) plies. **/
+    public static byte loss(int plies) {
+        return (byte) -(plies / 2 + 1);
+    }
+
+    /** @return number of plies until the end of the game, for value v != DRAW. **/
+    public static int plies(int v) {
+        return v > 0 ? 2 * v - 1 : 2 * (-v - 1);
+    }
+    //</editor-fold>
+
+    private final int maxPieces;
+    private final Slice[] bySignature;
+    private final ByteBuffer data;
+
+    /** an inflated block; it never changes, so threads can share it without locks. **/
+    private static final class Block {
+        final int id;
+        final byte[] values;
+
+        Block(int id, byte[] values) {
+            this.id = id;
+            this.values = values;
+        }
+    }
+
+    /**
+     * cache[id % CACHE_BLOCKS] is the last inflated block with that slot, or
+     * null. Threads read and replace the entries without locks: the fields of
+     * a Block are final, so a thread that sees a Block sees all of it, and two
+     * threads that inflate the same block at once only waste one inflate.
+     */
+    private final Block[] cache = new Block[CACHE_BLOCKS];
+    private final LongAdder probes = new LongAdder(), misses = new LongAdder();
+
+    private EndgameTable(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("not an endgame table");
+        }
+        maxPieces = buffer.getInt();
+        if (maxPieces < 0 || maxPieces > MAX_PIECES) {
+            throw new IOException(String.format(
+                    "endgame table with %d pieces; at most %d are supported",
+                    maxPieces, MAX_PIECES));
+        }
+        bySignature = new Slice[signature(maxPieces, maxPieces, maxPieces, maxPieces, maxPieces) + 1];
+        int slices = buffer.getInt();
+        int blockCount = 0;
+        for (int s = 0; s < slices; s++) {
+            Slice slice = new Slice(buffer.get(), buffer.get(), buffer.get(), buffer.get());
+            slice.blocks = new long[buffer.getInt() + 1];
+            for (int b = 0; b < slice.blocks.length; b++) {
+                slice.blocks[b] = buffer.getLong();
+            }
+            slice.firstBlock = blockCount;
+            blockCount += slice.blocks.length;
+            bySignature[signature(maxPieces, slice.wm, slice.wk, slice.bm, slice.bk)] = slice;
+        }
+        data = buffer.slice();
+    }
+
+    /**
+     * @param resource name of a table file, relative to this class. A file
+     * inside a jar is copied to a temporary file first, so that it can be
+     * memory mapped.
+     * @return the table, or null if there is no such file.
+     */
+    public static EndgameTable load(String resource) {
+        URL url = EndgameTable.class.getResource(resource);
+        if (url == null) {
+            return null;
+        }
+        try {
+            File file;
+            if ("file".equals(url.getProtocol())) {
+                file = new File(url.toURI());
+            } else {
+                file = File.createTempFile("endgame", ".tb");
+                file.deleteOnExit();
+                try (InputStream in = url.openStream()) {
+                    Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return open(file);
+        } catch (Exception ex) {
+            LOG.log(Level.WARNING, "unable to load endgame table " + resource, ex);
+            return null;
+        }
+    }
+
+    /** memory maps the table in file. **/
+    public static EndgameTable open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new EndgameTable(buffer);
+        }
+    }
+
+    /** @return the largest number of pieces of the positions in the table. **/
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * @return the value of state s for the player to move, or NOT_FOUND if s
+     * is not in the table.
+     */
+    public int probe(DraughtsState s) {
+        int[] pieces = s.getPieces();
+        int wm = 0, wk = 0, bm = 0, bk = 0;
+        for (int f = 1; f <= 50; f++) {
+            switch (pieces[f]) {
+                case DraughtsState.WHITEPIECE: wm++; break;
+                case DraughtsState.WHITEKING:  wk++; break;
+                case DraughtsState.BLACKPIECE: bm++; break;
+                case DraughtsState.BLACKKING:  bk++; break;
+            }
+        }
+        if (wm + wk + bm + bk > maxPieces) {
+            return NOT_FOUND;
+        }
+        Slice slice = bySignature[signature(maxPieces, wm, wk, bm, bk)];
+        if (slice == null) {
+            return NOT_FOUND;
+        }
+        int i = slice.index(pieces, s.isWhiteToMove());
+        return block(slice, i / BLOCK_SIZE)[i % BLOCK_SIZE];
+    }
+
+    /** @return the inflated block b of slice, from the cache if possible. **/
+    private byte[] block(Slice slice, int b) {
+        int id = slice.firstBlock + b;
+        int slot = id & (CACHE_BLOCKS - 1);
+        probes.increment();
+        Block cached = cache[slot];
+        if (cached != null && cached.id == id) {
+            return cached.values;
+        }
+        misses.increment();
+        byte[] compressed = new byte[(int) (slice.blocks[b + 1] - slice.blocks[b])];
+        ByteBuffer in = data.duplicate();
+        in.position((int) slice.blocks[b]);
+        in.get(compressed);
+        byte[] values = new byte[BLOCK_SIZE];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            inflater.inflate(values);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("corrupt endgame table block " + id, ex);
+        } finally {
+            inflater.end();
+        }
+        cache[slot] = new Block(id, values);
+        return values;
+    }
+
+    /** @return percentage of the probes that found their block in the cache. **/
+    public double getCacheHitRate() {
+        long n = probes.sum();
+        return n == 0 ? 0 : 100.0 * (n - misses.sum()) / n;
+    }
+
+    /**
+     * Writes a table in the format that open reads.
+     *
+     * @param maxPieces the largest number of pieces in the slices
+     * @param slices the slices, each with its values
+     */
+    public static void write(OutputStream out, int maxPieces, List<Slice> slices,
+            List<byte[]> values) throws IOException {
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        long[][] offsets = new long[slices.size()][];
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        byte[] buffer = new byte[2 * BLOCK_SIZE];
+        for (int s = 0; s < slices.size(); s++) {
+            byte[] v = values.get(s);
+            int count = (v.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            offsets[s] = new long[count + 1];
+            for (int b = 0; b < count; b++) {
+                offsets[s][b] = blocks.size();
+                byte[] block = new byte[BLOCK_SIZE];
+                System.arraycopy(v, b * BLOCK_SIZE, block, 0,
+                        Math.min(BLOCK_SIZE, v.length - b * BLOCK_SIZE));
+                deflater.reset();
+                deflater.setInput(block);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    blocks.write(buffer, 0, deflater.deflate(buffer));
+                }
+            }
+            offsets[s][count] = blocks.size();
+        }
+        deflater.end();
+
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeInt(maxPieces);
+        header.writeInt(slices.size());
+        for (int s = 0; s < slices.size(); s++) {
+            Slice slice = slices.get(s);
+            header.writeByte(slice.wm);
+            header.writeByte(slice.wk);
+            header.writeByte(slice.bm);
+            header.writeByte(slice.bk);
+            header.writeInt(offsets[s].length - 1);
+            for (long offset : offsets[s]) {
+                header.writeLong(offset);
+            }
+        }
+        blocks.writeTo(header);
+        header.flush();
+    }
+}
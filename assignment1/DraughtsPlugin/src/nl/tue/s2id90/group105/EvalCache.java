@@ -0,0 +1,69 @@
+package nl.tue.s2id90.group105;
+
+import java.util.Arrays;
+
+/**
+ * Direct-mapped cache of static evaluations by Zobrist key. Leaves are
+ * reached again and again through transpositions and in every iteration of
+ * the iterative deepening, and each time the evaluation would be computed
+ * from scratch. An entry is one long: the upper 32 bits of the key, which
+ * verify the entry, and the score. A new entry simply replaces the old one
+ * in its slot.
+ *
+ * @see TranspositionTable
+ */
+public class EvalCache {
+    /** returned by probe if the cache has no score for a key. **/
+    public static final long MISS = Long.MIN_VALUE;
+
+    /** the part of the key that is kept in an entry. **/
+    private static final long KEY_BITS = 0xFFFFFFFF00000000L;
+
+    private final long[] entries;
+    private final int mask;
+
+    /** number of lookups and how many of them found the state. **/
+    private long lookups, hits;
+
+    /**
+     * @param log2Entries the cache has 2^log2Entries entries of 8 bytes each.
+     */
+    public EvalCache(int log2Entries) {
+        entries = new long[1 << log2Entries];
+        mask = (1 << log2Entries) - 1;
+    }
+
+    /** removes all entries. **/
+    public void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    /**
+     * @param key Zobrist key of a state
+     * @return the cached score of the state, or MISS.
+     */
+    public long probe(long key) {
+        lookups++;
+        long entry = entries[(int) key & mask];
+        if (entry != 0L && (entry & KEY_BITS) == (key & KEY_BITS)) {
+            hits++;
+            return (int) entry;
+        }
+        return MISS;
+    }
+
+    /** stores the score of the state with the given key. **/
+    public void store(long key, int score) {
+        entries[(int) key & mask] = (key & KEY_BITS) | (score & 0xFFFFFFFFL);
+    }
+
+    /** resets the lookup and hit counts. **/
+    public void resetStatistics() {
+        lookups = hits = 0;
+    }
+
+    /** @return percentage of the lookups since resetStatistics that were hits. **/
+    public double getHitRate() {
+        return lookups == 0 ? 0 : 100.0 * hits / lookups;
+    }
+}
@@ -0,0 +1,171 @@
+package nl.tue.s2id90.group105;
+
+import java.util.Arrays;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * The terms of the evaluation that are sums over the pieces on the board:
+ * the material and tempo features of EvalWeights, and the board itself as
+ * bitboards: bit f of a bitboard stands for field f. A search
+ * keeps an EvalState next to its DraughtsState and calls doMove and undoMove
+ * whenever it does or undoes a move on the state; the terms are then updated
+ * from the fields and pieces in the move, like Zobrist.update does for the
+ * key, instead of being recomputed from the whole board at every leaf.
+ * Optionally it also keeps the tuple indices of a PatternNetwork.
+ *
+ * <p>
+ * The tempo feature of row k is the number of white men on row k of the
+ * board (see Bitboards) minus the number of black men on row 9 - k. A man
+ * that reaches its last row is promoted, so the feature of row 0 is always
+ * 0. See EvalWeights.
+ * </p>
+ */
+public final class EvalState {
+    /** the fields with a white piece, a black piece, and a king. **/
+    private long white, black, kings;
+
+    /** white minus black men, and white minus black kings. **/
+    private int men, kingCount;
+
+    /** tempo[k] is the tempo feature of row k. **/
+    private final int[] tempo = new int[EvalWeights.TEMPO_ROWS];
+
+    /** the pattern network whose indices are kept, or null. **/
+    private final PatternNetwork patterns;
+
+    /** index of every tuple of patterns. **/
+    private final int[] patternIndex;
+
+    /** creates the terms of an empty board; use reset before searching. **/
+    public EvalState() {
+        this((PatternNetwork) null);
+    }
+
+    /**
+     * creates the terms of an empty board, including the tuple indices of
+     * patterns; use reset before searching.
+     *
+     * @param patterns pattern network, or null
+     */
+    public EvalState(PatternNetwork patterns) {
+        this.patterns = patterns;
+        this.patternIndex = new int[patterns == null ? 0 : patterns.size()];
+    }
+
+    /** creates the terms of state s. **/
+    public EvalState(DraughtsState s) {
+        this((PatternNetwork) null);
+        reset(s);
+    }
+
+    /** recomputes all terms from the board of state s. **/
+    public void reset(DraughtsState s) {
+        white = black = kings = 0L;
+        men = kingCount = 0;
+        Arrays.fill(tempo, 0);
+        Arrays.fill(patternIndex, 0);
+        int[] pieces = s.getPieces();
+        for (int f = 1; f <= 50; f++) {
+            if (pieces[f] != DraughtsState.EMPTY) {
+                add(f, pieces[f], 1);
+            }
+        }
+    }
+
+    /** updates the terms for move m, which is done on the state. **/
+    public void doMove(Move m) {
+        add(m.getBeginField(), m.getBeginPiece(), -1);
+        add(m.getEndField(), m.getEndPiece(), 1);
+        for (int i = 0; i < m.getCaptureCount(); i++) {
+            add(m.getCapturedField(i), m.getCapturedPiece(i), -1);
+        }
+    }
+
+    /** updates the terms for move m, which is undone on the state. **/
+    public void undoMove(Move m) {
+        add(m.getEndField(), m.getEndPiece(), -1);
+        add(m.getBeginField(), m.getBeginPiece(), 1);
+        for (int i = 0; i < m.getCaptureCount(); i++) {
+            add(m.getCapturedField(i), m.getCapturedPiece(i), 1);
+        }
+    }
+
+    /**
+     * adds (sign 1) or removes (sign -1) piece p on field f. The bits are
+     * flipped either way, because a piece is only added to an empty field
+     * and only removed from a field that it is on.
+     */
+    private void add(int f, int p, int sign) {
+        if (patterns != null) {
+            patterns.update(patternIndex, f, p, sign);
+        }
+        long bit = 1L << f;
+        int row = Bitboards.row(f);
+        switch (p) {
+            case DraughtsState.WHITEPIECE:
+                white ^= bit;
+                men += sign;
+                tempo[row] += sign;
+                break;
+            case DraughtsState.WHITEKING:
+                white ^= bit;
+                kings ^= bit;
+                kingCount += sign;
+                break;
+            case DraughtsState.BLACKPIECE:
+                black ^= bit;
+                men -= sign;
+                tempo[9 - row] -= sign;
+                break;
+            case DraughtsState.BLACKKING:
+                black ^= bit;
+                kings ^= bit;
+                kingCount -= sign;
+                break;
+        }
+    }
+
+    /** @return bitboard of the white pieces, men and kings. **/
+    public long getWhite() {
+        return white;
+    }
+
+    /** @return bitboard of the black pieces, men and kings. **/
+    public long getBlack() {
+        return black;
+    }
+
+    /** @return bitboard of the kings of both players. **/
+    public long getKings() {
+        return kings;
+    }
+
+    /** @return number of white men minus number of black men. **/
+    public int getManBalance() {
+        return men;
+    }
+
+    /** @return number of white kings minus number of black kings. **/
+    public int getKingBalance() {
+        return kingCount;
+    }
+
+    /** @return total number of pieces on the board. **/
+    public int getPieceCount() {
+        return Long.bitCount(white | black);
+    }
+
+    /** @return the tempo feature of row k, 0 &lt;= k &lt; EvalWeights.TEMPO_ROWS. **/
+    public int getTempo(int k) {
+        return tempo[k];
+    }
+
+    /**
+     * @return the value of the pattern network for the board, positive
+     * values are good for white; 0 if there is no network.
+     */
+    public int getPatternScore() {
+        return patterns == null ? 0 : patterns.score(patternIndex);
+    }
+}
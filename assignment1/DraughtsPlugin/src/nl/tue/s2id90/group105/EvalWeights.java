@@ -0,0 +1,173 @@
+package nl.tue.s2id90.group105;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The weights of the linear evaluation of MyDraughtsPlayerV2. The value of a
+ * position is the sum over the features of weight times feature, where each
+ * feature is the difference between white and black of a count of pieces:
+ * men, kings, men per tempo row, men on the back rank, men in the centre,
+ * runaway men and outposts (see Bitboards).
+ *
+ * <p>
+ * The tempo feature of row k counts the white men on row k minus the black
+ * men on row 9 - k, the row that is just as far from black's promotion. No
+ * man can be on row 0 of its own side, so tempo row 0 is always 0 and has
+ * weight 0. The default weights are the hand-picked material and tempo
+ * weights; back rank, centre, runaways and outposts have weight 0 by
+ * default, so that they only count once the EvalTuner tool has fitted them
+ * on games and written a properties file that load reads.
+ * </p>
+ *
+ * @see nl.tue.s2id90.group105.tools.EvalTuner
+ */
+public class EvalWeights {
+    private static final Logger LOG = Logger.getLogger(EvalWeights.class.getName());
+
+    /** index of the weight of a feature. **/
+    public static final int MAN = 0, KING = 1, TEMPO = 2, BACK_RANK = 12, CENTRE = 13,
+            RUNAWAY = 14, OUTPOST = 15;
+
+    /** number of features. **/
+    public static final int COUNT = 16;
+
+    /** number of tempo rows; TEMPO + k is the weight of tempo row k. **/
+    static final int TEMPO_ROWS = 10;
+
+    private static final String[] NAMES = new String[COUNT];
+
+    static {
+        NAMES[MAN] = "man";
+        NAMES[KING] = "king";
+        for (int k = 0; k < TEMPO_ROWS; k++) {
+            NAMES[TEMPO + k] = "tempo" + k;
+        }
+        NAMES[BACK_RANK] = "backRank";
+        NAMES[CENTRE] = "centre";
+        NAMES[RUNAWAY] = "runaway";
+        NAMES[OUTPOST] = "outpost";
+    }
+
+    private final int[] w;
+
+    /** @param weights a weight per feature, indexed by MAN .. OUTPOST **/
+    public EvalWeights(int[] weights) {
+        if (weights.length != COUNT) {
+            throw new IllegalArgumentException("expected " + COUNT + " weights");
+        }
+        this.w = weights.clone();
+    }
+
+    /**
+     * @return the hand-picked weights, with weight 0 for the features that
+     * have not been tuned.
+     */
+    public static EvalWeights defaults() {
+        int[] w = new int[COUNT];
+        w[MAN] = 10;
+        w[KING] = 30;
+        int[] tempo = {0, 9, 8, 7, 6, 5, 4, 3, 2, 1};
+        System.arraycopy(tempo, 0, w, TEMPO, TEMPO_ROWS);
+        return new EvalWeights(w);
+    }
+
+    /**
+     * @param resource name of a properties file, relative to this class
+     * @return the weights in the file, or null if there is no such file.
+     * Weights that are missing in the file keep their default value.
+     */
+    public static EvalWeights load(String resource) {
+        try (InputStream in = EvalWeights.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            Properties p = new Properties();
+            p.load(in);
+            int[] w = defaults().w;
+            for (int i = 0; i < COUNT; i++) {
+                String value = p.getProperty(NAMES[i]);
+                if (value != null) {
+                    w[i] = Integer.parseInt(value.trim());
+                }
+            }
+            return new EvalWeights(w);
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "unable to load evaluation weights " + resource, ex);
+            return null;
+        }
+    }
+
+    /** @return the weights as properties, in the format read by load. **/
+    public Properties toProperties() {
+        Properties p = new Properties();
+        for (int i = 0; i < COUNT; i++) {
+            p.setProperty(NAMES[i], Integer.toString(w[i]));
+        }
+        return p;
+    }
+
+    /** @return a copy of the weights, indexed by MAN .. OUTPOST. **/
+    public int[] toArray() {
+        return w.clone();
+    }
+
+    /**
+     * Computes the features of a position.
+     *
+     * @param white bitboard of the white pieces
+     * @param black bitboard of the black pieces
+     * @param kings bitboard of the kings
+     * @param f receives the COUNT features, white minus black
+     */
+    public static void features(long white, long black, long kings, int[] f) {
+        long whiteMen = white & ~kings, blackMen = black & ~kings;
+        f[MAN] = Long.bitCount(whiteMen) - Long.bitCount(blackMen);
+        f[KING] = Long.bitCount(white & kings) - Long.bitCount(black & kings);
+        for (int k = 0; k < TEMPO_ROWS; k++) {
+            f[TEMPO + k] = Long.bitCount(whiteMen & Bitboards.tempoRow(k))
+                    - Long.bitCount(blackMen & Bitboards.tempoRow(9 - k));
+        }
+        f[BACK_RANK] = Long.bitCount(whiteMen & Bitboards.WHITE_BACK_RANK)
+                - Long.bitCount(blackMen & Bitboards.BLACK_BACK_RANK);
+        f[CENTRE] = Long.bitCount(whiteMen & Bitboards.CENTRE)
+                - Long.bitCount(blackMen & Bitboards.CENTRE);
+        f[RUNAWAY] = Bitboards.whiteRunaways(whiteMen, black)
+                - Bitboards.blackRunaways(blackMen, white);
+        f[OUTPOST] = Bitboards.whiteOutposts(whiteMen, white)
+                - Bitboards.blackOutposts(blackMen, black);
+    }
+
+    /**
+     * @return the value of the position with the terms, without creating a
+     * feature array; positive values are good for white. The material and
+     * tempo features are the incrementally updated ones of terms; only the
+     * features that depend on neighbouring pieces are computed here.
+     */
+    public int evaluate(EvalState terms) {
+        long white = terms.getWhite(), black = terms.getBlack(), kings = terms.getKings();
+        long whiteMen = white & ~kings, blackMen = black & ~kings;
+        int score = w[MAN] * terms.getManBalance() + w[KING] * terms.getKingBalance();
+        for (int k = 0; k < TEMPO_ROWS; k++) {
+            score += w[TEMPO + k] * terms.getTempo(k);
+        }
+        score += w[BACK_RANK] * (Long.bitCount(whiteMen & Bitboards.WHITE_BACK_RANK)
+                - Long.bitCount(blackMen & Bitboards.BLACK_BACK_RANK));
+        score += w[CENTRE] * (Long.bitCount(whiteMen & Bitboards.CENTRE)
+                - Long.bitCount(blackMen & Bitboards.CENTRE));
+        score += w[RUNAWAY] * (Bitboards.whiteRunaways(whiteMen, black)
+                - Bitboards.blackRunaways(blackMen, white));
+        score += w[OUTPOST] * (Bitboards.whiteOutposts(whiteMen, white)
+                - Bitboards.blackOutposts(blackMen, black));
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "EvalWeights" + Arrays.toString(w);
+    }
+}
@@ -0,0 +1,35 @@
+package nl.tue.s2id90.group105;
+
+import nl.tue.s2id90.draughts.DraughtsState;
+
+/**
+ * Static evaluation of draughts states, as used at the leaves of a search.
+ */
+public interface Evaluator {
+
+    /**
+     * @param state a draughts state that is not an end state
+     * @return the value of state; positive values are good for white.
+     */
+    int evaluate(DraughtsState state);
+
+    /**
+     * Evaluates state with the help of the terms that the search keeps up to
+     * date incrementally. By default the terms are ignored.
+     *
+     * @param state a draughts state that is not an end state
+     * @param terms the terms of state
+     * @return the value of state; positive values are good for white.
+     */
+    default int evaluate(DraughtsState state, EvalState terms) {
+        return evaluate(state);
+    }
+
+    /**
+     * @return a new EvalState with the terms this evaluator needs; a search
+     * keeps it up to date and passes it to evaluate(state, terms).
+     */
+    default EvalState createTerms() {
+        return new EvalState();
+    }
+}
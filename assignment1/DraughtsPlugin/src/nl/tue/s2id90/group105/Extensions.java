@@ -0,0 +1,54 @@
+package nl.tue.s2id90.group105;
+
+/**
+ * Search extensions in fractional plies: a move that is likely to matter is
+ * searched deeper than the other moves of its node. Extensions are counted
+ * in units of 1 / ONE_PLY ply; the units of the moves on a line add up, and
+ * every time they reach a multiple of ONE_PLY the line is one ply deeper.
+ * So a recapture extension of half a ply makes a line with two recaptures
+ * one ply longer.
+ *
+ * <ul>
+ * <li>single reply: the only move of a node; costs little, since the node
+ * has nothing else to search.</li>
+ * <li>recapture: a capture that answers a capture, where a fixed-depth
+ * search is most often cut off in the middle of an exchange.</li>
+ * </ul>
+ * The extension of a line is capped at maxPerLine units, so that a long
+ * series of forced moves does not explode the search.
+ */
+public class Extensions {
+    /** the units of one ply. **/
+    public static final int ONE_PLY = 4;
+
+    /** units of the single reply and recapture extensions. **/
+    final int singleReply, recapture;
+
+    /** maximum number of units along one line from the root. **/
+    final int maxPerLine;
+
+    /**
+     * @param singleReply units of extension of the only move of a node
+     * @param recapture units of extension of a capture after a capture
+     * @param maxPerLine maximum units of extension of a line
+     */
+    public Extensions(int singleReply, int recapture, int maxPerLine) {
+        this.singleReply = singleReply;
+        this.recapture = recapture;
+        this.maxPerLine = maxPerLine;
+    }
+
+    /**
+     * @return a full ply for a single reply, half a ply for a recapture, and
+     * at most four plies per line.
+     */
+    public static Extensions defaults() {
+        return new Extensions(ONE_PLY, ONE_PLY / 2, 4 * ONE_PLY);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Extensions(singleReply=%d/%d, recapture=%d/%d, maxPerLine=%d/%d)",
+                singleReply, ONE_PLY, recapture, ONE_PLY, maxPerLine, ONE_PLY);
+    }
+}
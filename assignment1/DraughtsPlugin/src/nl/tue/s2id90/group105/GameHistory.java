@@ -0,0 +1,87 @@
+package nl.tue.s2id90.group105;
+
+import java.util.Arrays;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * The Zobrist keys of the positions of a game that a search needs to detect
+ * repetitions: those since the last irreversible move. A capture or a move
+ * of a man can not be undone, so no position before it can come back.
+ *
+ * <p>
+ * A player only sees the positions in which it has to move. The history
+ * records those and the positions after its own moves, and finds the
+ * opponent's move in between by its key. If no move of the opponent leads
+ * to the new position, a new game has started and the history starts over.
+ * </p>
+ */
+public class GameHistory {
+    private long[] keys = new long[64];
+    private int size;
+
+    /** the last recorded position, or null. **/
+    private DraughtsState last;
+
+    /** @return whether move m can be undone: a king move that does not capture. **/
+    public static boolean isReversible(Move m) {
+        return m.isKingMove() && !m.isCapture();
+    }
+
+    /** forgets the game. **/
+    public void clear() {
+        size = 0;
+        last = null;
+    }
+
+    /**
+     * Records that the game reached s, the position in which this player has
+     * to move.
+     */
+    public void reached(DraughtsState s) {
+        long key = Zobrist.hash(s);
+        Move move = null;
+        if (last != null) {
+            long lastKey = Zobrist.hash(last);
+            for (Move m : last.getMoves()) {
+                if (Zobrist.update(lastKey, m) == key) {
+                    move = m;
+                    break;
+                }
+            }
+        }
+        if (move == null || !isReversible(move)) {
+            size = 0;
+        }
+        add(key);
+        last = s.clone();
+    }
+
+    /** records that move m is played in the last recorded position. **/
+    public void played(Move m) {
+        if (last == null) {
+            return;
+        }
+        long key = Zobrist.update(keys[size - 1], m);
+        if (!isReversible(m)) {
+            size = 0;
+        }
+        add(key);
+        last.doMove(m);
+    }
+
+    /**
+     * @return the keys of the positions since the last irreversible move,
+     * oldest first; the last key is that of the last recorded position.
+     */
+    public long[] getKeys() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    private void add(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+        }
+        keys[size++] = key;
+    }
+}
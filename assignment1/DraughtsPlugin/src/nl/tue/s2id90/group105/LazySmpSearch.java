@@ -0,0 +1,188 @@
+package nl.tue.s2id90.group105;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Lazy SMP: a search that uses more than one thread. Next to the main search,
+ * helper threads run the same iterative deepening search on their own clone
+ * of the state. All threads share one transposition table, which is how the
+ * helpers speed up the main search: they fill the table with results the
+ * main search would otherwise have to compute itself. Half of the helpers
+ * start one ply deeper, so that the threads do not all search the same
+ * depth at the same time. The move that is returned is always the move of
+ * the main search.
+ */
+public class LazySmpSearch extends Search {
+    private static final Logger LOG = Logger.getLogger(LazySmpSearch.class.getName());
+
+    private final Search[] helpers;
+    private final ExecutorService pool;
+
+    /**
+     * @param evaluator evaluation function for the leaves of the search; it
+     * is called from all threads at the same time.
+     * @param threads total number of threads, including the calling thread.
+     */
+    public LazySmpSearch(Evaluator evaluator, int threads) {
+        this(evaluator, threads, new TranspositionTable(TABLE_BITS));
+    }
+
+    /**
+     * @param evaluator evaluation function for the leaves of the search; it
+     * is called from all threads at the same time.
+     * @param threads total number of threads, including the calling thread.
+     * @param tt transposition table that all threads share
+     */
+    public LazySmpSearch(Evaluator evaluator, int threads, TranspositionTable tt) {
+        super(evaluator, tt);
+        helpers = new Search[Math.max(0, threads - 1)];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(evaluator, getTable());
+        }
+        pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, r -> {
+            Thread t = new Thread(r, "lazy-smp-helper");
+            t.setDaemon(true);   // do not keep the AICompetition tool alive
+            return t;
+        });
+    }
+
+    /** sets the root strategy of the main search and the helpers. **/
+    @Override
+    public void setRootStrategy(RootStrategy strategy) {
+        super.setRootStrategy(strategy);
+        for (Search helper : helpers) {
+            helper.setRootStrategy(strategy);
+        }
+    }
+
+    /** sets the ProbCut parameters of the main search and the helpers. **/
+    @Override
+    public void setProbCut(ProbCut probCut) {
+        super.setProbCut(probCut);
+        for (Search helper : helpers) {
+            helper.setProbCut(probCut);
+        }
+    }
+
+    /** sets the extensions of the main search and the helpers. **/
+    @Override
+    public void setExtensions(Extensions extensions) {
+        super.setExtensions(extensions);
+        for (Search helper : helpers) {
+            helper.setExtensions(extensions);
+        }
+    }
+
+    /** sets the game history of the main search and the helpers. **/
+    @Override
+    public void setGameHistory(long[] keys) {
+        super.setGameHistory(keys);
+        for (Search helper : helpers) {
+            helper.setGameHistory(keys);
+        }
+    }
+
+    /** sets the endgame table of the main search and the helpers. **/
+    @Override
+    public void setEndgameTable(EndgameTable endgame) {
+        super.setEndgameTable(endgame);
+        for (Search helper : helpers) {
+            helper.setEndgameTable(endgame);
+        }
+    }
+
+    /** @return total number of threads used by this search. **/
+    public int getThreadCount() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * Starts the helpers, runs the main search in the calling thread and
+     * stops the helpers as soon as the main search is done.
+     */
+    @Override
+    Move run(DraughtsState s, int maxDepth) {
+        List<Future<?>> running = startHelpers(s, maxDepth);
+        Move bestMove = super.run(s, maxDepth);
+        stopHelpers(running);
+        return bestMove;
+    }
+
+    /**
+     * Runs the multi-PV analysis in the calling thread while the helpers
+     * run ordinary searches that fill the shared table.
+     */
+    @Override
+    List<PrincipalVariation> runAnalysis(DraughtsState s, int maxDepth, int count) {
+        List<Future<?>> running = startHelpers(s, maxDepth);
+        List<PrincipalVariation> lines = super.runAnalysis(s, maxDepth, count);
+        stopHelpers(running);
+        return lines;
+    }
+
+    /** starts the helpers on clones of s. **/
+    private List<Future<?>> startHelpers(DraughtsState s, int maxDepth) {
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            DraughtsState copy = s.clone();
+            int startDepth = 1 + i % 2;
+            helper.prepare();   // here, so that a stop() cannot get lost
+            running.add(pool.submit(() -> helper.iterate(copy, startDepth, maxDepth)));
+        }
+        return running;
+    }
+
+    /** stops the helpers and waits until they are done. **/
+    private void stopHelpers(List<Future<?>> running) {
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                LOG.log(Level.SEVERE, "lazy smp helper failed", ex);
+            }
+        }
+    }
+
+    /** ends the helper threads; this search can not be used afterwards. **/
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /** @return number of nodes visited by all threads in the last search. **/
+    @Override
+    public long getNodes() {
+        long n = super.getNodes();
+        for (Search helper : helpers) {
+            n += helper.getNodes();
+        }
+        return n;
+    }
+
+    /**
+     * @return the statistics of the main search, with the counters of the
+     * helpers added; the iterations are those of the main search.
+     */
+    @Override
+    public SearchStats getStats() {
+        SearchStats stats = super.getStats();
+        for (Search helper : helpers) {
+            stats.add(helper.getStats());
+        }
+        return stats;
+    }
+}
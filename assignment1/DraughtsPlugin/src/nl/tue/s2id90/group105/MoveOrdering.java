@@ -0,0 +1,110 @@
+package nl.tue.s2id90.group105;
+
+import org10x10.dam.game.Move;
+
+/**
+ * Orders the moves of a node such that the moves that are most likely to
+ * cause a cutoff are searched first. In order of priority these are:
+ * <ol>
+ * <li>the hash move from the transposition table,</li>
+ * <li>the two killer moves of the ply, i.e. moves that recently caused a
+ * cutoff in a sibling node,</li>
+ * <li>the counter move of the move that led to the node,</li>
+ * <li>the other moves, ordered by their history score: the number of cutoffs
+ * the move (from, to) caused, weighted by the depth of the cutoff.</li>
+ * </ol>
+ * Moves are identified by their begin and end field.
+ *
+ * @see TranspositionTable#encode(Move)
+ */
+public class MoveOrdering {
+    /** maximum number of plies in a search. **/
+    public static final int MAX_PLY = 128;
+
+    private static final int HASH_SCORE = 1 << 30;
+    private static final int KILLER1_SCORE = 1 << 29;
+    private static final int KILLER2_SCORE = 1 << 28;
+    private static final int COUNTER_SCORE = 1 << 27;
+
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[51][51];
+    private final int[][] counterMoves = new int[51][51];
+    private int[] scores = new int[64];
+
+    /**
+     * Prepares for a new search: forgets the killer moves and decays the
+     * history scores, such that old cutoffs count less than new ones.
+     */
+    public void startSearch() {
+        for (int[] k : killers) {
+            k[0] = k[1] = 0;
+        }
+        for (int[] h : history) {
+            for (int i = 0; i < h.length; i++) {
+                h[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Sorts moves, best candidate first.
+     *
+     * @param moves moves of a node; the first n are sorted
+     * @param n number of moves
+     * @param hashMove encoded hash move of the node, or 0
+     * @param ply distance of the node to the root
+     * @param previous move that led to the node, or null in the root
+     */
+    public void order(Move[] moves, int n, int hashMove, int ply, Move previous) {
+        if (scores.length < n) {
+            scores = new int[2 * n];
+        }
+        int counter = previous == null ? 0
+                : counterMoves[previous.getBeginField()][previous.getEndField()];
+        for (int i = 0; i < n; i++) {
+            Move m = moves[i];
+            int code = TranspositionTable.encode(m);
+            int score;
+            if (code == hashMove) {
+                score = HASH_SCORE;
+            } else if (code == killers[ply][0]) {
+                score = KILLER1_SCORE;
+            } else if (code == killers[ply][1]) {
+                score = KILLER2_SCORE;
+            } else if (code == counter) {
+                score = COUNTER_SCORE;
+            } else {
+                score = history[m.getBeginField()][m.getEndField()];
+            }
+            // insertion sort on descending score
+            int j = i;
+            while (j > 0 && scores[j - 1] < score) {
+                scores[j] = scores[j - 1];
+                moves[j] = moves[j - 1];
+                j--;
+            }
+            scores[j] = score;
+            moves[j] = m;
+        }
+    }
+
+    /**
+     * Registers that move m caused a cutoff.
+     *
+     * @param m move that caused the cutoff
+     * @param ply distance of the node to the root
+     * @param depth remaining search depth of the node
+     * @param previous move that led to the node, or null in the root
+     */
+    public void cutoff(Move m, int ply, int depth, Move previous) {
+        int code = TranspositionTable.encode(m);
+        if (killers[ply][0] != code) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = code;
+        }
+        history[m.getBeginField()][m.getEndField()] += depth * depth;
+        if (previous != null) {
+            counterMoves[previous.getBeginField()][previous.getEndField()] = code;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package nl.tue.s2id90.group105;
 
-import static java.lang.Integer.MAX_VALUE;
-import static java.lang.Integer.MIN_VALUE;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import nl.tue.s2id90.draughts.DraughtsState;
 import nl.tue.s2id90.draughts.player.DraughtsPlayer;
+import nl.tue.s2id90.game.Instrumented;
 import org10x10.dam.game.Move;
 
 /**
@@ -15,210 +22,393 @@ import org10x10.dam.game.Move;
  */
 // ToDo: rename this class (and hence this file) to have a distinct name
 //       for your player during the tournament
-public class MyDraughtsPlayerV2 extends DraughtsPlayer {
+public class MyDraughtsPlayerV2 extends DraughtsPlayer implements Evaluator, Instrumented {
 
     private int bestValue = 0;
+
+    /** statistics of the search of the last move; empty for a book move. **/
+    private SearchStats stats = new SearchStats();
+
+    /**
+     * upper bound on the depth of the iterative deepening search.
+     */
     int maxSearchDepth;
 
     /**
-     * boolean that indicates that the GUI asked the player to stop thinking.
+     * the search that computes the moves, using evaluate at its leaves.
+     */
+    private final Search search;
+
+    /**
+     * the young brothers wait search that computes the moves instead of
+     * search, or null if the player uses the lazy SMP search.
+     */
+    private final YbwcSearch ybwc;
+
+    /** default size of the transposition table in megabytes. **/
+    static final int TABLE_MEGABYTES = 8;
+
+    /** book moves for the first plies of the game, or null if there is no book. **/
+    private final OpeningBook book = OpeningBook.load("openings.book");
+
+    /**
+     * exact values of the positions with few pieces, or null if there is no
+     * table; shared by all players, because it is large.
      */
-    private boolean stopped;
+    private static final EndgameTable ENDGAME = EndgameTable.load("endgame.tb");
+
+    /** weights of the evaluation: tuned ones if there is a file, else the defaults. **/
+    private static final EvalWeights WEIGHTS = weights(EvalWeights.load("eval.properties"));
+
+    /**
+     * whether the pattern network of patterns.net is added to the
+     * evaluation. It is off until it plays better: in matches against the
+     * same player without it, the trained network did not score more than
+     * 50%, and it costs time in every node.
+     */
+    static final boolean USE_PATTERNS = false;
+
+    /** pattern weights added to the evaluation, or null if they are not used. **/
+    private static final PatternNetwork PATTERNS
+            = USE_PATTERNS ? PatternNetwork.load("patterns.net") : null;
+
+    /** positions of the game that the search can repeat. **/
+    private final GameHistory history = new GameHistory();
+
+    /** picks between the book moves of a position. **/
+    private final Random random = new Random();
+
+    //<editor-fold defaultstate="collapsed" desc="pondering">
+    /** whether the player thinks on the opponent's time. **/
+    private boolean pondering = false;
+
+    /** runs the ponder searches, in the background. **/
+    private final ExecutorService ponderer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ponder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** the running (or finished) ponder search, or null. **/
+    private Future<Move> ponderTask;
+
+    /** hash of the position the ponder search is searching. **/
+    private long ponderHash;
+
+    /** true while getMove runs; stop() is ignored while only pondering. **/
+    private volatile boolean thinking = false;
+
+    private int ponderHits = 0;
+    private int ponderMisses = 0;
+    //</editor-fold>
 
     public MyDraughtsPlayerV2(int maxSearchDepth) {
+        this(maxSearchDepth, 1);
+    }
+
+    /**
+     * @param maxSearchDepth upper bound on the search depth
+     * @param threads number of threads used by the (lazy SMP) search
+     */
+    public MyDraughtsPlayerV2(int maxSearchDepth, int threads) {
+        this(maxSearchDepth, threads, Search.RootStrategy.PVS);
+    }
+
+    /**
+     * @param maxSearchDepth upper bound on the search depth
+     * @param threads number of threads used by the (lazy SMP) search
+     * @param strategy how the search finds the value of the root
+     */
+    public MyDraughtsPlayerV2(int maxSearchDepth, int threads, Search.RootStrategy strategy) {
+        this(maxSearchDepth, threads, strategy, TABLE_MEGABYTES);
+    }
+
+    /**
+     * @param maxSearchDepth upper bound on the search depth
+     * @param threads number of threads used by the (lazy SMP) search
+     * @param strategy how the search finds the value of the root
+     * @param tableMegabytes size of the transposition table; the table is
+     * kept over all moves and games of this player.
+     */
+    public MyDraughtsPlayerV2(int maxSearchDepth, int threads, Search.RootStrategy strategy,
+            int tableMegabytes) {
+        this(maxSearchDepth, threads, strategy, tableMegabytes, false);
+    }
+
+    /**
+     * @param maxSearchDepth upper bound on the search depth
+     * @param threads number of threads used by the search
+     * @param ybwc whether the moves are computed by the young brothers wait
+     * search instead of the lazy SMP search; such a player does not ponder.
+     */
+    public MyDraughtsPlayerV2(int maxSearchDepth, int threads, boolean ybwc) {
+        this(maxSearchDepth, threads, Search.RootStrategy.PVS, TABLE_MEGABYTES, ybwc);
+    }
+
+    private MyDraughtsPlayerV2(int maxSearchDepth, int threads, Search.RootStrategy strategy,
+            int tableMegabytes, boolean ybwc) {
         super("best.png"); // ToDo: replace with your own icon
         this.maxSearchDepth = maxSearchDepth;
+        this.ybwc = ybwc ? new YbwcSearch(this, threads) : null;
+        if (this.ybwc != null) {
+            this.ybwc.setEndgameTable(ENDGAME);
+        }
+        this.search = new LazySmpSearch(this, ybwc ? 1 : threads,
+                TranspositionTable.ofMegabytes(tableMegabytes));
+        this.search.setProbCut(ProbCut.load("probcut.properties"));
+        this.search.setEndgameTable(ENDGAME);
+        this.search.setExtensions(Extensions.defaults());
+        this.search.setRootStrategy(strategy);
+    }
+
+    /**
+     * Switches pondering on or off. A pondering player keeps searching after
+     * getMove returns, in the position after the reply it expects from the
+     * opponent. A player with the young brothers wait search does not ponder.
+     *
+     * @return this player
+     */
+    public MyDraughtsPlayerV2 setPondering(boolean pondering) {
+        this.pondering = pondering && ybwc == null;
+        return this;
+    }
+
+    /** the name shows the root strategy and the search if they are not the default ones. **/
+    @Override
+    public String getName() {
+        String name = super.getName();
+        if (search.getRootStrategy() != Search.RootStrategy.PVS) {
+            name += "-" + search.getRootStrategy();
+        }
+        if (ybwc != null) {
+            name += "-ybwc";
+        }
+        return pondering ? name + "-ponder" : name;
     }
 
     @Override
     public Move getMove(DraughtsState s) {
-        Move bestMove = null;
-        bestValue = 0;
-        DraughtsNode node = new DraughtsNode(s);    // the root of the search tree
+        Move bestMove;
+        thinking = true;
+        history.reached(s);
         try {
-            // compute bestMove and bestValue in a call to alphabeta
-            bestValue = alphaBeta(node, MIN_VALUE, MAX_VALUE, maxSearchDepth);
+            // play from the book while the game is in it; otherwise use the
+            // ponder search if the opponent played the expected move, or
+            // compute bestMove in a new iterative deepening search
+            bestMove = book == null ? null : book.probe(s, random);
+            if (bestMove != null) {
+                cancelPondering();
+                System.err.format("%s: book move %s\n",
+                        this.getClass().getSimpleName(), bestMove);
+                bestValue = 0;
+                stats = new SearchStats();
+                history.played(bestMove);
+                return bestMove;
+            }
+            if (ybwc != null) {
+                long[] keys = history.getKeys();
+                ybwc.setGameHistory(Arrays.copyOf(keys, keys.length - 1));
+                bestMove = ybwc.search(s, maxSearchDepth);
+                bestValue = ybwc.getValue();
+                stats = ybwc.getStats();
+                System.err.format("%s: depth= %2d, best move = %5s, value=%d, %s\n",
+                        this.getClass().getSimpleName(), ybwc.getDepthReached(), bestMove,
+                        bestValue, stats);
+                return playMove(s, bestMove);
+            }
+            bestMove = finishPondering(s);
+            if (bestMove == null) {
+                long[] keys = history.getKeys();
+                search.setGameHistory(Arrays.copyOf(keys, keys.length - 1));
+                bestMove = search.search(s, maxSearchDepth);
+            }
+        } finally {
+            thinking = false;
+        }
+        bestValue = search.getValue();
+        stats = search.getStats();
 
-            // store the bestMove found uptill now
-            // NB this is not done in case of an AIStoppedException in alphaBeat()
-            bestMove = node.getBestMove();
+        // print the results for debugging reasons
+        System.err.format(
+                "%s: depth= %2d, best move = %5s, value=%d, re-searches=%.1f%%,"
+                + " eval cache hits=%.1f%%, tt fill=%.1f%%, ponder hits=%d/%d, %s\n",
+                this.getClass().getSimpleName(), search.getDepthReached(), bestMove,
+                bestValue, search.getResearchRate(), search.getEvalCacheHitRate(),
+                search.getTable().getFillRate(), ponderHits, ponderHits + ponderMisses, stats
+        );
 
-            // print the results for debugging reasons
-            System.err.format(
-                    "%s: depth= %2d, best move = %5s, value=%d\n",
-                    this.getClass().getSimpleName(), maxSearchDepth, bestMove, bestValue
-            );
-        } catch (AIStoppedException ex) {  /* nothing to do */        }
+        bestMove = playMove(s, bestMove);
+        if (bestMove != null && pondering) {
+            startPondering(s, bestMove);
+        }
+        return bestMove;
+    }
 
+    /**
+     * Records bestMove, or a random move if the search found none, in the
+     * game history.
+     *
+     * @return the move to play in s
+     */
+    private Move playMove(DraughtsState s, Move bestMove) {
         if (bestMove == null) {
             System.err.println("no valid move found!");
-            return getRandomValidMove(s);
-        } else {
-            return bestMove;
+            bestMove = getRandomValidMove(s);
         }
+        if (bestMove != null) {
+            history.played(bestMove);
+        }
+        return bestMove;
     }
 
     /**
-     * This method's return value is displayed in the AICompetition GUI.
+     * Starts a ponder search in the position after our move and the reply
+     * the transposition table predicts for the opponent. There is no ponder
+     * search if the table knows no reply or the game ends.
      *
-     * @return the value for the draughts state s as it is computed in a call to
-     * getMove(s).
+     * @param s state in which we play move
      */
-    @Override
-    public Integer getValue() {
-        return bestValue;
+    private void startPondering(DraughtsState s, Move move) {
+        DraughtsState expected = s.clone();
+        expected.doMove(move);
+        if (expected.isEndState()) {
+            return;
+        }
+        Move reply = search.getHashMove(expected);
+        if (reply == null) {
+            return;
+        }
+        expected.doMove(reply);
+        if (expected.isEndState()) {
+            return;
+        }
+        search.setGameHistory(GameHistory.isReversible(reply) ? history.getKeys() : new long[0]);
+        ponderHash = Zobrist.hash(expected);
+        search.start();   // here, so that a stop() cannot get lost
+        ponderTask = ponderer.submit(() -> search.run(expected, maxSearchDepth));
     }
 
     /**
-     * Tries to make alphabeta search stop. Search should be implemented such
-     * that it throws an AIStoppedException when boolean stopped is set to true;
+     * Ends the ponder search, if any. On a ponder hit the ponder search
+     * simply continues as the search for s, until it is stopped or done; on
+     * a miss it is stopped and its (warm) transposition table is all that
+     * remains.
      *
+     * @return best move in s according to the ponder search, or null if there
+     * was no ponder search for s.
      */
-    @Override
-    public void stop() {
-        stopped = true;
+    private Move finishPondering(DraughtsState s) {
+        if (ponderTask == null) {
+            return null;
+        }
+        if (Zobrist.hash(s) != ponderHash) {
+            ponderMisses++;
+            cancelPondering();
+            return null;
+        }
+        ponderHits++;
+        try {
+            return ponderTask.get();
+        } catch (InterruptedException | ExecutionException ex) {
+            return null;
+        } finally {
+            ponderTask = null;
+        }
     }
 
-    /**
-     * returns random valid move in state s, or null if no moves exist.
-     */
-    Move getRandomValidMove(DraughtsState s) {
-        List<Move> moves = s.getMoves();
-        Collections.shuffle(moves);
-        return moves.isEmpty() ? null : moves.get(0);
+    /** stops the ponder search, if any, and waits until it has stopped. **/
+    private void cancelPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+        search.stop();
+        try {
+            ponderTask.get();
+        } catch (InterruptedException | ExecutionException ex) {
+            // the search is gone, which is all we want
+        } finally {
+            ponderTask = null;
+        }
     }
 
     /**
-     * Implementation of alphabeta that automatically chooses the white player
-     * as maximizing player and the black player as minimizing player.
-     *
-     * @param node contains DraughtsState and has field to which the best move
-     * can be assigned.
-     * @param alpha
-     * @param beta
-     * @param depth maximum recursion Depth
-     * @return the computed value of this node
-     * @throws AIStoppedException
+     * Multi-PV analysis of s, for analysis tools; stop() ends it early. A
+     * ponder search is cancelled first.
      *
+     * @param count number of moves to analyse
+     * @return the count best moves of s with their values and principal
+     * variations, best first.
+     * @see Search#analyse(DraughtsState, int, int)
      */
-    int alphaBeta(DraughtsNode node, int alpha, int beta, int depth)
-            throws AIStoppedException {
-        if (node.getState().isWhiteToMove()) {
-            return alphaBetaMax(node, alpha, beta, depth);
-        } else {
-            return alphaBetaMin(node, alpha, beta, depth);
+    public List<PrincipalVariation> analyse(DraughtsState s, int count) {
+        cancelPondering();
+        thinking = true;
+        try {
+            return search.analyse(s, maxSearchDepth, count);
+        } finally {
+            thinking = false;
         }
     }
 
     /**
-     * Does an alphabeta computation with the given alpha and beta where the
-     * player that is to move in node is the minimizing player.
-     *
-     * <p>
-     * Typical pieces of code used in this method are:
-     * <ul> <li><code>DraughtsState state = node.getState()</code>.</li>
-     * <li><code> state.doMove(move); .... ; state.undoMove(move);</code></li>
-     * <li><code>node.setBestMove(bestMove);</code></li>
-     * <li><code>if(stopped) { stopped=false; throw new AIStoppedException(); }</code></li>
-     * </ul>
-     * </p>
+     * @return depth of the last completed iteration of the last search.
+     */
+    public int getDepthReached() {
+        return search.getDepthReached();
+    }
+
+    /** @return the statistics of the search of the last move. **/
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /** the counters of the last search, summed per game by the OfflineTournament. **/
+    @Override
+    public Map<String, Long> getStatistics() {
+        return stats.toMap();
+    }
+
+    /**
+     * This method's return value is displayed in the AICompetition GUI.
      *
-     * @param node contains DraughtsState and has field to which the best move
-     * can be assigned.
-     * @param alpha
-     * @param beta
-     * @param depth maximum recursion Depth
-     * @return the compute value of this node
-     * @throws AIStoppedException thrown whenever the boolean stopped has been
-     * set to true.
+     * @return the value for the draughts state s as it is computed in a call to
+     * getMove(s).
      */
-    int alphaBetaMin(DraughtsNode node, int alpha, int beta, int depth)
-            throws AIStoppedException {
-        if (stopped) {
-            stopped = false;
-            throw new AIStoppedException();
-        }
-        DraughtsState state = node.getState();
-        // ToDo: write an alphabeta search to compute bestMove and value
-        Move bestMove = null;
-        // Evaluate all endStates or when depth is 0
-        if (state.isEndState() || depth == 0) {
-            return evaluate(state);
-        } else {
-            // List all possible moves
-            List<Move> moves = state.getMoves();
-            int currentValue = Integer.MAX_VALUE;
-
-            for (Move move : moves) {
-                // Do a move to reach next state
-                state.doMove(move);
-                DraughtsNode newNode = new DraughtsNode(state);
-
-                // Get nextValue with recursive call
-                int nextValue = alphaBetaMax(newNode, alpha, beta, depth - 1);
-                // If next value is smaller than the current
-                if (nextValue < currentValue) {
-                    bestMove = move;
-                    currentValue = nextValue;
-                }
-                beta = Math.min(beta, currentValue);
-                state.undoMove(move);
-                // Alpha cutoff
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-            node.setBestMove(bestMove);
-            return currentValue;
-        }
+    @Override
+    public Integer getValue() {
+        return bestValue;
     }
 
-    int alphaBetaMax(DraughtsNode node, int alpha, int beta, int depth)
-            throws AIStoppedException {
-        if (stopped) {
-            stopped = false;
-            throw new AIStoppedException();
-        }
-        DraughtsState state = node.getState();
-        // ToDo: write an alphabeta search to compute bestMove and value
-        Move bestMove = null;
-        // Evaluate all endStates and when currentDepth is 0
-        if (state.isEndState() || depth == 0) {
-            return evaluate(state);
-        } else {
-            // List all possible moves
-            List<Move> moves = state.getMoves();
-            int currentValue = Integer.MIN_VALUE;
-
-            for (Move move : moves) {
-                // Do a move to reach next state
-                state.doMove(move);
-                DraughtsNode newNode = new DraughtsNode(state);
-
-                // Get nextValue with recursive call
-                int nextValue = alphaBetaMin(newNode, alpha, beta, depth - 1);
-                // If next value is larger than the current
-                if (nextValue > currentValue) {
-                    bestMove = move;
-                    currentValue = nextValue;
-                }
-                alpha = Math.max(alpha, currentValue);
-                state.undoMove(move);
-                // Beta cutoff
-                if (beta <= alpha) {
-                    break;
-                }
+    /**
+     * Makes the search stop; getMove then returns the best move of the last
+     * completed iteration. A ponder search is not stopped by this: it runs
+     * until the opponent's move is known.
+     */
+    @Override
+    public void stop() {
+        if (thinking) {
+            search.stop();
+            if (ybwc != null) {
+                ybwc.stop();
             }
-            node.setBestMove(bestMove);
-            return currentValue;
         }
     }
 
+    /**
+     * returns random valid move in state s, or null if no moves exist.
+     */
+    Move getRandomValidMove(DraughtsState s) {
+        List<Move> moves = new ArrayList<>(s.getMoves());
+        Collections.shuffle(moves);
+        return moves.isEmpty() ? null : moves.get(0);
+    }
+
     /**
      * A method that evaluates the given state.
      */
     // ToDo: write an appropriate evaluation function
-    int evaluate(DraughtsState state) {
+    @Override
+    public int evaluate(DraughtsState state) {
         // Check if someone won
         if (state.isEndState()) {
             if (state.isWhiteToMove()) {
@@ -228,130 +418,33 @@ public class MyDraughtsPlayerV2 extends DraughtsPlayer {
                 return Integer.MAX_VALUE - 1;
             }
         }
-        int totalScore = 0;
-        totalScore += (piecesCount(state) * 10);
-        totalScore += tempiCount(state);
-        //totalScore += attackMoves(state);
-        return totalScore;
+        EvalState terms = createTerms();
+        terms.reset(state);
+        return evaluate(state, terms);
     }
 
-    /**
-     * Calculates a score for all pieces on the board Kings are worth triple
-     * compared to normal pieces
-     *
-     * @return white score - black score
-     */
-    private int piecesCount(DraughtsState state) {
-        int whiteScore = 0;
-        int blackScore = 0;
-        int[] pieces = state.getPieces();
-        for (int i = 0; i < pieces.length; i++) {
-            int piece = pieces[i];
-            switch (piece) {
-                case DraughtsState.WHITEKING:
-                    whiteScore += 3;
-                    break;
-                case DraughtsState.WHITEPIECE:
-                    whiteScore += 1;
-                    break;
-                case DraughtsState.BLACKKING:
-                    blackScore += 3;
-                    break;
-                case DraughtsState.BLACKPIECE:
-                    blackScore += 1;
-                    break;
-            }
-        }
-        return whiteScore - blackScore;
+    /** the terms include the indices of the pattern network, if there is one. **/
+    @Override
+    public EvalState createTerms() {
+        return new EvalState(PATTERNS);
     }
 
     /**
-     * Calculates tempi of a state, this works as follows: 1. Count number of
-     * pieces per row 2. Multiply it by row number as current player
-     *
-     * @return white tempi value - black tempi value
+     * Evaluates state from its incrementally updated bitboards, as the sum of
+     * the weighted features of EvalWeights. The pattern network, if any,
+     * adds its score.
      */
-    private int tempiCount(DraughtsState state) {
-        int blackValue = 0;
-        int whiteValue = 0;
-        int[] pieces = state.getPieces();
-        for (int i = 0; i < pieces.length; i++) {
-            int row = (int) Math.floor(i / 5);
-            switch (row) {
-                case (0):
-                    // If black piece
-                    if (pieces[i] == 2) {
-                        blackValue += 1;
-                    } else if (pieces[i] == 1) { // If new white king
-                        whiteValue += 3000;
-                    }
-                    break;
-                case (1):
-                    if (pieces[i] == 2) {
-                        blackValue += 2;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 9;
-                    }
-                    break;
-                case (2):
-                    if (pieces[i] == 2) {
-                        blackValue += 3;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 8;
-                    }
-                    break;
-                case (3):
-                    if (pieces[i] == 2) {
-                        blackValue += 4;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 7;
-                    }
-                    break;
-                case (4):
-                    if (pieces[i] == 2) {
-                        blackValue += 5;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 6;
-                    }
-                    break;
-                case (5):
-                    if (pieces[i] == 2) {
-                        blackValue += 6;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 5;
-                    }
-                    break;
-                case (6):
-                    if (pieces[i] == 2) {
-                        blackValue += 7;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 4;
-                    }
-                    break;
-                case (7):
-                    if (pieces[i] == 2) {
-                        blackValue += 8;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 3;
-                    }
-                    break;
-                case (8):
-                    if (pieces[i] == 2) {
-                        blackValue += 9;
-                    } else if (pieces[i] == 1) {
-                        whiteValue += 2;
-                    }
-                    break;
-                case (9):
-                    if (pieces[i] == 2) { // If new black king
-                        blackValue += 3000;
-                    } else if (pieces[i] == 1) { // If white piece
-                        whiteValue += 1;
-                    }
-                    break;
-            }
-        }
-        return whiteValue - blackValue;
+    @Override
+    public int evaluate(DraughtsState state, EvalState terms) {
+        int totalScore = 0;
+        totalScore += WEIGHTS.evaluate(terms);
+        totalScore += terms.getPatternScore();
+        //totalScore += attackMoves(state);
+        return totalScore;
+    }
+
+    private static EvalWeights weights(EvalWeights tuned) {
+        return tuned != null ? tuned : EvalWeights.defaults();
     }
 
     /**
@@ -20,8 +20,14 @@ public class MyDraughtsPlugin extends DraughtsPlayerProvider implements Draughts
         // During the final competition you should make only your 
         // best player available. For testing it might be handy
         // to make more than one player available.
+        // The second argument of MyDraughtsPlayerV2 is its number of threads,
+        // the optional third one the way it searches the root, or true for
+        // the young brothers wait search instead of lazy SMP.
         super(new MFW(5),
-                new MyDraughtsPlayerV2(5),
+                new MyDraughtsPlayerV2(30, 4),
+                new MyDraughtsPlayerV2(30, 4, Search.RootStrategy.MTDF),
+                new MyDraughtsPlayerV2(30, 4, true),
+                new MyDraughtsPlayerV2(30, 4).setPondering(true),
                 new MyDraughtsPlayerTest(5),
                 new UninformedPlayer(),
                 new OptimisticPlayer(),
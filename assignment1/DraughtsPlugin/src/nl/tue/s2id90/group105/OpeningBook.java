@@ -0,0 +1,131 @@
+package nl.tue.s2id90.group105;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Opening book: for positions early in the game, the moves that an offline
+ * analysis found good, each with a weight. A position is identified by its
+ * Zobrist key and a move by its TranspositionTable code.
+ *
+ * <p>
+ * The entries are kept in three parallel arrays sorted on key, so the moves
+ * of a position are a consecutive range that is found by binary search. The
+ * file format is the same: the number of entries, followed by a
+ * (long key, short move, short weight) triple per entry.
+ * </p>
+ *
+ * @see nl.tue.s2id90.group105.tools.OpeningBookBuilder
+ */
+public class OpeningBook {
+    private static final Logger LOG = Logger.getLogger(OpeningBook.class.getName());
+
+    private final long[] keys;
+    private final short[] moves;
+    private final short[] weights;
+
+    /**
+     * @param keys Zobrist keys of the positions, sorted ascending
+     * @param moves code of the move of each entry
+     * @param weights weight (> 0) of the move of each entry
+     */
+    public OpeningBook(long[] keys, short[] moves, short[] weights) {
+        this.keys = keys;
+        this.moves = moves;
+        this.weights = weights;
+    }
+
+    /**
+     * @param resource name of a book file, relative to this class
+     * @return the book in the file, or null if there is no such file.
+     */
+    public static OpeningBook load(String resource) {
+        try (InputStream in = OpeningBook.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            return read(in);
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "unable to load opening book " + resource, ex);
+            return null;
+        }
+    }
+
+    /** reads a book in the format written by write. **/
+    public static OpeningBook read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        int n = data.readInt();
+        long[] keys = new long[n];
+        short[] moves = new short[n];
+        short[] weights = new short[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = data.readLong();
+            moves[i] = data.readShort();
+            weights[i] = data.readShort();
+        }
+        return new OpeningBook(keys, moves, weights);
+    }
+
+    /** writes this book to out. **/
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            data.writeLong(keys[i]);
+            data.writeShort(moves[i]);
+            data.writeShort(weights[i]);
+        }
+        data.flush();
+    }
+
+    /** @return number of (position, move) entries. **/
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Picks a book move in state s; a move is picked with a probability
+     * proportional to its weight.
+     *
+     * @return a valid move in s, or null if s is not in the book.
+     */
+    public Move probe(DraughtsState s, Random random) {
+        long key = Zobrist.hash(s);
+        int first = Arrays.binarySearch(keys, key);
+        if (first < 0) {
+            return null;
+        }
+        // binarySearch finds any entry with the key; go to the first one
+        while (first > 0 && keys[first - 1] == key) {
+            first--;
+        }
+        int last = first;
+        int total = 0;
+        while (last < keys.length && keys[last] == key) {
+            total += weights[last++];
+        }
+
+        int pick = random.nextInt(total);
+        int i = first;
+        while (pick >= weights[i]) {
+            pick -= weights[i++];
+        }
+        for (Move m : s.getMoves()) {
+            if (TranspositionTable.encode(m) == moves[i]) {
+                return m;
+            }
+        }
+        return null;    // only if the key collides with a book position
+    }
+}
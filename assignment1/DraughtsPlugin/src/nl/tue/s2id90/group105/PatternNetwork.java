@@ -0,0 +1,229 @@
+package nl.tue.s2id90.group105;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import nl.tue.s2id90.draughts.DraughtsState;
+
+/**
+ * N-tuple pattern network: a set of tuples of fields, each with a table
+ * that has a weight for every way the fields of the tuple can be occupied.
+ * The value of a position is the sum of the weights of the occupations of
+ * all tuples; positive values are good for white.
+ *
+ * <p>
+ * A field of a tuple is a digit of the index in its table. With base 5 the
+ * digit is the piece on the field (EMPTY, WHITEPIECE, BLACKPIECE, WHITEKING,
+ * BLACKKING); with base 3 it is only the colour (empty, white, black), which
+ * gives much smaller tables. The indices are kept in an int[] with one
+ * entry per tuple that EvalState updates on every move, so a leaf costs one
+ * table lookup per tuple.
+ * </p>
+ *
+ * <p>
+ * File format: magic, base, number of tuples; per tuple its number of
+ * fields and the fields (bytes); then per tuple its weights (shorts).
+ * </p>
+ */
+public class PatternNetwork {
+    private static final Logger LOG = Logger.getLogger(PatternNetwork.class.getName());
+
+    private static final int MAGIC = 0x4e54504c;   // "NTPL"
+
+    private final int base;
+    private final int[][] tuples;
+    private final short[][] weights;
+
+    /**
+     * fieldTuple[f] and power[f] list the tuples that field f is in, and
+     * the value of the digit of f in the index of each of those tuples.
+     */
+    private final int[][] fieldTuple = new int[51][];
+    private final int[][] power = new int[51][];
+
+    /**
+     * @param base 3 or 5
+     * @param tuples the fields of each tuple
+     * @param weights per tuple a table of base^(tuple length) weights
+     */
+    public PatternNetwork(int base, int[][] tuples, short[][] weights) {
+        if (base != 3 && base != 5) {
+            throw new IllegalArgumentException("base must be 3 or 5: " + base);
+        }
+        this.base = base;
+        this.tuples = tuples;
+        this.weights = weights;
+        List<List<int[]>> byField = new ArrayList<>();
+        for (int f = 0; f <= 50; f++) {
+            byField.add(new ArrayList<>());
+        }
+        for (int t = 0; t < tuples.length; t++) {
+            int p = 1;
+            for (int f : tuples[t]) {
+                byField.get(f).add(new int[] {t, p});
+                p *= base;
+            }
+            if (weights[t].length != p) {
+                throw new IllegalArgumentException("tuple " + t + " needs " + p + " weights");
+            }
+        }
+        for (int f = 0; f <= 50; f++) {
+            List<int[]> entries = byField.get(f);
+            fieldTuple[f] = new int[entries.size()];
+            power[f] = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                fieldTuple[f][i] = entries.get(i)[0];
+                power[f][i] = entries.get(i)[1];
+            }
+        }
+    }
+
+    /**
+     * @return a network with zero weights and a tuple for each of the 4x4
+     * squares whose top left corner is on an even row and column; each
+     * tuple has the 8 fields of its square.
+     */
+    public static PatternNetwork squares(int base) {
+        List<int[]> tuples = new ArrayList<>();
+        for (int r = 0; r <= 6; r += 2) {
+            for (int c = 0; c <= 6; c += 2) {
+                int[] tuple = new int[8];
+                int n = 0;
+                for (int dr = 0; dr < 4; dr++) {
+                    for (int dc = 0; dc < 4; dc++) {
+                        int f = Bitboards.field(r + dr, c + dc);
+                        if (f != 0) {
+                            tuple[n++] = f;
+                        }
+                    }
+                }
+                tuples.add(tuple);
+            }
+        }
+        short[][] weights = new short[tuples.size()][];
+        for (int t = 0; t < weights.length; t++) {
+            weights[t] = new short[(int) Math.pow(base, tuples.get(t).length)];
+        }
+        return new PatternNetwork(base, tuples.toArray(new int[0][]), weights);
+    }
+
+    /**
+     * @param resource name of a weight file, relative to this class
+     * @return the network in the file, or null if there is no such file.
+     */
+    public static PatternNetwork load(String resource) {
+        try (InputStream in = PatternNetwork.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            return read(in);
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "unable to load pattern network " + resource, ex);
+            return null;
+        }
+    }
+
+    /** reads a network in the format written by write. **/
+    public static PatternNetwork read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a pattern network");
+        }
+        int base = data.readInt();
+        int[][] tuples = new int[data.readInt()][];
+        for (int t = 0; t < tuples.length; t++) {
+            tuples[t] = new int[data.readUnsignedByte()];
+            for (int i = 0; i < tuples[t].length; i++) {
+                tuples[t][i] = data.readUnsignedByte();
+            }
+        }
+        short[][] weights = new short[tuples.length][];
+        for (int t = 0; t < tuples.length; t++) {
+            weights[t] = new short[(int) Math.pow(base, tuples[t].length)];
+            for (int i = 0; i < weights[t].length; i++) {
+                weights[t][i] = data.readShort();
+            }
+        }
+        return new PatternNetwork(base, tuples, weights);
+    }
+
+    /** writes this network to out. **/
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(base);
+        data.writeInt(tuples.length);
+        for (int[] tuple : tuples) {
+            data.writeByte(tuple.length);
+            for (int f : tuple) {
+                data.writeByte(f);
+            }
+        }
+        for (short[] table : weights) {
+            for (short w : table) {
+                data.writeShort(w);
+            }
+        }
+        data.flush();
+    }
+
+    /** @return number of tuples. **/
+    public int size() {
+        return tuples.length;
+    }
+
+    /** @return the weight tables, one per tuple; changes are seen by score. **/
+    public short[][] getWeights() {
+        return weights;
+    }
+
+    /** @return the digit of piece p in an index. **/
+    private int digit(int p) {
+        return base == 5 || p <= DraughtsState.BLACKPIECE ? p : p - 2;
+    }
+
+    /**
+     * Updates the tuple indices for adding (sign 1) or removing (sign -1)
+     * piece p on field f.
+     *
+     * @param index the index of every tuple, of length size()
+     */
+    public void update(int[] index, int f, int p, int sign) {
+        int d = sign * digit(p);
+        int[] ts = fieldTuple[f];
+        int[] ps = power[f];
+        for (int i = 0; i < ts.length; i++) {
+            index[ts[i]] += d * ps[i];
+        }
+    }
+
+    /**
+     * Computes the tuple indices of the board pieces from scratch.
+     *
+     * @param index receives the index of every tuple
+     */
+    public void indices(int[] pieces, int[] index) {
+        Arrays.fill(index, 0);
+        for (int f = 1; f <= 50; f++) {
+            update(index, f, pieces[f], 1);
+        }
+    }
+
+    /** @return the value of the position with the given tuple indices. **/
+    public int score(int[] index) {
+        int score = 0;
+        for (int t = 0; t < index.length; t++) {
+            score += weights[t][index[t]];
+        }
+        return score;
+    }
+}
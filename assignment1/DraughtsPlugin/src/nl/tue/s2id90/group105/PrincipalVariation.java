@@ -0,0 +1,58 @@
+package nl.tue.s2id90.group105;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org10x10.dam.game.Move;
+
+/**
+ * A result of a multi-PV analysis: a root move with its exact value and the
+ * line that the search expects to follow it.
+ *
+ * @see Search#analyse(nl.tue.s2id90.draughts.DraughtsState, int, int)
+ */
+public class PrincipalVariation {
+    private final List<Move> moves;
+    private final int value;
+    private final int depth;
+
+    /**
+     * @param moves the line, starting with the root move
+     * @param value value of the root move, positive values are good for white
+     * @param depth depth of the search that found the value
+     */
+    public PrincipalVariation(List<Move> moves, int value, int depth) {
+        this.moves = Collections.unmodifiableList(moves);
+        this.value = value;
+        this.depth = depth;
+    }
+
+    /** @return the root move. **/
+    public Move getMove() {
+        return moves.get(0);
+    }
+
+    /**
+     * @return the moves of the line, starting with the root move. The line
+     * is read from the transposition table, so it can be shorter than depth.
+     */
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    /** @return value of the root move; positive values are good for white. **/
+    public int getValue() {
+        return value;
+    }
+
+    /** @return depth of the search that found the value. **/
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%6d (depth %d): %s", value, depth, moves.stream()
+                .map(m -> m.getNotation().trim()).collect(Collectors.joining(" ")));
+    }
+}
@@ -0,0 +1,102 @@
+package nl.tue.s2id90.group105;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ProbCut forward pruning (M. Buro). The value v of a deep search of depth d
+ * is predicted from the value v' of a shallow search of depth d - reduction
+ * of the same node by a linear model v = a*v' + b + e, where the error e is
+ * normally distributed with standard deviation sigma. If the shallow search
+ * says that v >= beta with enough certainty (threshold standard deviations),
+ * the deep search is skipped; likewise for v <= alpha.
+ *
+ * <p>
+ * Null-move pruning is not used because zugzwang is common in draughts.
+ * The parameters a, b and sigma are fitted by the ProbCutCalibration tool on
+ * a set of positions and loaded from a properties file.
+ * </p>
+ *
+ * @see nl.tue.s2id90.group105.tools.ProbCutCalibration
+ */
+public class ProbCut {
+    private static final Logger LOG = Logger.getLogger(ProbCut.class.getName());
+
+    /** minimum remaining depth of a node in which ProbCut is tried. **/
+    final int minDepth;
+    /** depth of the deep search minus depth of the shallow search. **/
+    final int reduction;
+    private final double a, b, sigma, threshold;
+
+    public ProbCut(int minDepth, int reduction, double a, double b, double sigma,
+            double threshold) {
+        this.minDepth = minDepth;
+        this.reduction = reduction;
+        this.a = a;
+        this.b = b;
+        this.sigma = sigma;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param resource name of a properties file, relative to this class
+     * @return the ProbCut parameters in the file, or null if there is no
+     * such file.
+     */
+    public static ProbCut load(String resource) {
+        try (InputStream in = ProbCut.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            Properties p = new Properties();
+            p.load(in);
+            return new ProbCut(
+                    Integer.parseInt(p.getProperty("minDepth")),
+                    Integer.parseInt(p.getProperty("reduction")),
+                    Double.parseDouble(p.getProperty("a")),
+                    Double.parseDouble(p.getProperty("b")),
+                    Double.parseDouble(p.getProperty("sigma")),
+                    Double.parseDouble(p.getProperty("threshold")));
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "unable to load ProbCut parameters " + resource, ex);
+            return null;
+        }
+    }
+
+    /** @return the parameters as properties, in the format read by load. **/
+    public Properties toProperties() {
+        Properties p = new Properties();
+        p.setProperty("minDepth", Integer.toString(minDepth));
+        p.setProperty("reduction", Integer.toString(reduction));
+        p.setProperty("a", Double.toString(a));
+        p.setProperty("b", Double.toString(b));
+        p.setProperty("sigma", Double.toString(sigma));
+        p.setProperty("threshold", Double.toString(threshold));
+        return p;
+    }
+
+    /**
+     * @return bound such that a shallow value >= bound predicts a deep value
+     * >= beta.
+     */
+    int highBound(int beta) {
+        return (int) Math.ceil((beta + threshold * sigma - b) / a);
+    }
+
+    /**
+     * @return bound such that a shallow value <= bound predicts a deep value
+     * <= alpha.
+     */
+    int lowBound(int alpha) {
+        return (int) Math.floor((alpha - threshold * sigma - b) / a);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProbCut(minDepth=%d, reduction=%d, a=%.3f, b=%.3f, sigma=%.3f, t=%.2f)",
+                minDepth, reduction, a, b, sigma, threshold);
+    }
+}
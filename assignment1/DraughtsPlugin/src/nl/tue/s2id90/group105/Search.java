@@ -0,0 +1,1028 @@
+package nl.tue.s2id90.group105;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Iterative deepening principal variation search (PVS) in negamax form.
+ * Scores are from the point of view of the player to move. The first move of
+ * a node is searched with the full window; the other moves get a zero-window
+ * scout search that is only repeated with the full window when the scout
+ * shows that the move is better than the best move so far.
+ *
+ * <p>
+ * The search uses a transposition table and move ordering (hash move,
+ * killer moves, counter moves and history), late move reductions, optional
+ * ProbCut forward pruning, optional fractional-ply extensions, and a
+ * quiescence search at the depth horizon.
+ * What a position is worth is decided by the Evaluator that is given to the
+ * constructor, so different players can share this search; the search keeps
+ * the EvalState terms of the evaluation up to date as it does and undoes
+ * moves. Positions with few pieces can be looked up in an optional endgame
+ * table instead. A position that repeats a position of the game or of the
+ * searched line is a draw: the player who can avoid it will.
+ * </p>
+ *
+ * <p>
+ * The code of the search below the root does not allocate: it works on one
+ * copy of the state it was given, passes the Zobrist keys as arguments, and
+ * keeps the moves of each ply in a buffer of its own that is allocated once,
+ * like the killer moves of MoveOrdering. The move generation of the DraughtsState
+ * still allocates some 2 kB per node (the Move objects, the lists of the
+ * generator and the copy that getMoves returns), which is nearly all that a
+ * search allocates; see the AllocationBenchmark tool.
+ * </p>
+ */
+public class Search {
+    /** the ways in which an iteration searches the root. **/
+    public enum RootStrategy {
+        /** principal variation search in an aspiration window. **/
+        PVS,
+        /** MTD(f): a series of zero-window searches that converges on the value. **/
+        MTDF
+    }
+
+    /** value larger than any score; the full window is [-INFINITY,INFINITY]. **/
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    /**
+     * score of a won game. A win in n plies scores WIN - n, so that shorter
+     * wins are preferred.
+     */
+    public static final int WIN = 1000000;
+
+    /**
+     * score of a game that the endgame table says is won. A table win that
+     * ends the game n plies from the root scores TABLE_WIN - n. These scores
+     * are below WIN - MAX_PLY, because the wins can take more plies than the
+     * search can look ahead.
+     */
+    public static final int TABLE_WIN = WIN / 2;
+
+    /**
+     * table win scores are less than this many points below TABLE_WIN: the
+     * longest line of the search plus the longest distance of the table.
+     */
+    private static final int TABLE_HORIZON
+            = MoveOrdering.MAX_PLY + EndgameTable.plies(Byte.MAX_VALUE) + 1;
+
+    /**
+     * the deepest iteration: a line has a move, killer moves and statistics
+     * per ply, for MoveOrdering.MAX_PLY plies. Deeper searches stop here.
+     */
+    public static final int MAX_DEPTH = MoveOrdering.MAX_PLY;
+
+    /** half the width of the first aspiration window. **/
+    static final int ASPIRATION_WINDOW = 20;
+
+    /**
+     * late move reductions: in a node with at least LMR_MIN_DEPTH remaining
+     * depth, quiet moves from index LMR_MIN_MOVES on are searched
+     * LMR[depth][index] plies less deep.
+     */
+    static final int LMR_MIN_DEPTH = 3, LMR_MIN_MOVES = 3;
+    private static final int[][] LMR = new int[MoveOrdering.MAX_PLY][64];
+
+    static {
+        for (int depth = LMR_MIN_DEPTH; depth < LMR.length; depth++) {
+            for (int index = LMR_MIN_MOVES; index < 64; index++) {
+                int r = (int) (0.5 + Math.log(depth) * Math.log(index) / 2.25);
+                LMR[depth][index] = Math.max(1, Math.min(r, depth - 2));
+            }
+        }
+    }
+
+    /** log2 of the number of buckets of a default transposition table. **/
+    static final int TABLE_BITS = 18;
+
+    /** maximum number of positions of the game that are checked for repetitions. **/
+    static final int GAME_PLIES = 128;
+
+    /** log2 of the number of entries of the evaluation cache. **/
+    static final int EVAL_CACHE_BITS = 16;
+
+    private final Evaluator evaluator;
+
+    /** results of earlier searches; kept over the iterations and moves. **/
+    private final TranspositionTable tt;
+
+    /** how an iteration searches the root. **/
+    private RootStrategy strategy = RootStrategy.PVS;
+
+    /** forward pruning parameters, or null if ProbCut is not used. **/
+    private ProbCut probCut;
+
+    /** search extensions, or null if moves are not extended. **/
+    private Extensions extensions;
+
+    /** exact values of positions with few pieces, or null. **/
+    private EndgameTable endgame;
+
+    /** killer, counter move and history tables used to order the moves. **/
+    private final MoveOrdering ordering = new MoveOrdering();
+
+    /** evaluation terms of the searched state, updated with every move. **/
+    private final EvalState terms;
+
+    /** static evaluations of earlier leaves; kept over the iterations and moves. **/
+    private final EvalCache evalCache = new EvalCache(EVAL_CACHE_BITS);
+
+    /** line[p] is the move searched at distance p from the root. **/
+    private final Move[] line = new Move[MoveOrdering.MAX_PLY];
+
+    /**
+     * moveStack[p] holds the moves of the node at distance p from the root,
+     * in the order in which they are searched; it grows when a node has
+     * more moves than fit.
+     */
+    private final Move[][] moveStack = new Move[MoveOrdering.MAX_PLY + 1][32];
+
+    /**
+     * extension[p] is the number of extension units (see Extensions) of the
+     * line from the root to the node at distance p.
+     */
+    private final int[] extension = new int[MoveOrdering.MAX_PLY + 1];
+
+    /**
+     * keys of the game positions before the root (see setGameHistory),
+     * followed by those of the line from the root: the node at distance p
+     * has key path[base + p].
+     */
+    private final long[] path = new long[GAME_PLIES + MoveOrdering.MAX_PLY + 1];
+
+    /** number of game positions in path; set by setGameHistory. **/
+    private int base;
+
+    /**
+     * reversible[p] is the number of reversible moves (see GameHistory) that
+     * lead up to the node at distance p; no earlier position can repeat.
+     */
+    private final int[] reversible = new int[MoveOrdering.MAX_PLY + 1];
+
+    /** copy of the state that is searched; scratch space of the search. **/
+    private DraughtsState state;
+
+    /**
+     * boolean that indicates that the search has to stop as soon as possible.
+     * It is set from the timer thread, hence volatile.
+     */
+    private volatile boolean stopped;
+
+    /** depth of the last completed iteration. **/
+    private int depthReached;
+
+    /** value of the root after the last completed iteration, for white. **/
+    private int value;
+
+    /** counters of the last search, for this thread only. **/
+    private final SearchStats stats = new SearchStats();
+
+    /** number of root searches, and how many of them were repeated. **/
+    private long rootSearches, rootResearches;
+
+    /**
+     * @param evaluator evaluation function for the leaves of the search
+     */
+    public Search(Evaluator evaluator) {
+        this(evaluator, new TranspositionTable(TABLE_BITS));
+    }
+
+    /**
+     * @param evaluator evaluation function for the leaves of the search
+     * @param tt transposition table; it can be shared with other searches
+     * that run at the same time, and it is kept over all searches.
+     */
+    public Search(Evaluator evaluator, TranspositionTable tt) {
+        this.evaluator = evaluator;
+        this.tt = tt;
+        this.terms = evaluator.createTerms();
+    }
+
+    /**
+     * Iterative deepening: searches depth 1, 2, 3, ... until the search is
+     * stopped or maxDepth is reached. The best move of the last completed
+     * iteration is returned; the work of an interrupted iteration is
+     * discarded. Each iteration searches the best move of the previous
+     * iteration first.
+     *
+     * @param s state to search; the search works on a copy, so s is not
+     * changed, not even by a search that is stopped.
+     * @param maxDepth upper bound on the search depth; at most MAX_DEPTH
+     * @return best move found, or null if no iteration completed.
+     */
+    public Move search(DraughtsState s, int maxDepth) {
+        start();
+        return run(s, maxDepth);
+    }
+
+    /**
+     * Starts a new search of the shared table: the table starts a new
+     * generation, and the stop request and statistics are cleared. A search
+     * that runs on another thread is started in the thread that submits it,
+     * so that a stop() right after the submit cannot get lost. This is the
+     * only place where the generation changes: before any thread of the
+     * search runs, as TranspositionTable.newSearch requires.
+     */
+    void start() {
+        tt.newSearch();
+        prepare();
+    }
+
+    /**
+     * The search of search(s, maxDepth), once start() has been called.
+     *
+     * @param s state to search; it is not changed.
+     * @param maxDepth upper bound on the search depth
+     * @return best move found, or null if no iteration completed.
+     */
+    Move run(DraughtsState s, int maxDepth) {
+        long start = System.nanoTime();
+        Move bestMove = iterate(s, 1, maxDepth);
+        stats.time = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    /**
+     * Prepares for a call to iterate: clears the stop request (a stop() that
+     * arrived after the previous search) and the statistics.
+     */
+    void prepare() {
+        stopped = false;
+        stats.reset();
+        rootSearches = rootResearches = 0;
+        evalCache.resetStatistics();
+    }
+
+    /**
+     * The iterative deepening loop of search, starting at startDepth. It
+     * searches a copy of s: a stopped search leaves its state somewhere down
+     * the line it was searching, without undoing the moves.
+     *
+     * @param s state to search; it is not changed.
+     * @param startDepth depth of the first iteration
+     * @param maxDepth upper bound on the search depth; at most MAX_DEPTH
+     * @return best move found, or null if no iteration completed.
+     */
+    Move iterate(DraughtsState s, int startDepth, int maxDepth) {
+        maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        Move bestMove = null;
+        value = 0;
+        depthReached = 0;
+        ordering.startSearch();
+        state = s.clone();
+        // the root of the search tree; its key is computed before any move is done
+        DraughtsNode node = new DraughtsNode(state, Zobrist.hash(state));
+        path[base] = node.getHash();
+        reversible[0] = base;
+        terms.reset(state);
+        List<Move> rootMoves = new ArrayList<>(state.getMoves());
+        if (rootMoves.size() < 2) {
+            // nothing to choose, so do not waste time on a search
+            return rootMoves.isEmpty() ? null : rootMoves.get(0);
+        }
+        try {
+            int score = 0;
+            for (int depth = startDepth; depth <= maxDepth; depth++) {
+                long iterationStart = System.nanoTime();
+                long iterationNodes = stats.nodes;
+                if (strategy == RootStrategy.MTDF) {
+                    score = mtdf(node, rootMoves, depth, score);
+                } else {
+                    score = aspirationSearch(node, rootMoves, depth,
+                            depth > startDepth ? score : null);
+                }
+
+                // NB this is not done in case of an AIStoppedException
+                bestMove = node.getBestMove();
+                value = s.isWhiteToMove() ? score : -score;
+                depthReached = depth;
+                stats.iteration(depth, stats.nodes - iterationNodes,
+                        System.nanoTime() - iterationStart);
+
+                // search the principal variation first in the next iteration
+                rootMoves.remove(bestMove);
+                rootMoves.add(0, bestMove);
+
+                // a decided game does not get any better by searching deeper
+                if (Math.abs(score) > WIN - MoveOrdering.MAX_PLY) {
+                    break;
+                }
+            }
+        } catch (AIStoppedException ex) {  /* keep last completed iteration */ }
+        return bestMove;
+    }
+
+    /**
+     * Multi-PV analysis: finds the count best moves of s with their exact
+     * values and principal variations, by iterative deepening. An iteration
+     * searches the root count times, and every root search excludes the
+     * moves found by the earlier ones, so that it finds the best of the
+     * remaining moves. The root searches of an iteration share the
+     * transposition table, which makes all but the first one cheap; that is
+     * much less work than searching each move to full depth on its own.
+     *
+     * @param s state to analyse; like search, the analysis works on a copy.
+     * @param maxDepth upper bound on the search depth; at most MAX_DEPTH
+     * @param count number of moves to analyse
+     * @return the lines of the last completed iteration, best first; empty if
+     * s has no moves, count is less than 1 or no iteration completed. The
+     * only move of a position with one move is not searched: its line is
+     * just the move, with value 0 and depth 0.
+     */
+    public List<PrincipalVariation> analyse(DraughtsState s, int maxDepth, int count) {
+        start();
+        return runAnalysis(s, maxDepth, count);
+    }
+
+    /** the analysis of analyse(s, maxDepth, count), once start() has been called. **/
+    List<PrincipalVariation> runAnalysis(DraughtsState s, int maxDepth, int count) {
+        long start = System.nanoTime();
+        List<PrincipalVariation> lines = iterateLines(s, maxDepth, count);
+        stats.time = System.nanoTime() - start;
+        return lines;
+    }
+
+    /** the iterative deepening loop of analyse. **/
+    private List<PrincipalVariation> iterateLines(DraughtsState s, int maxDepth, int count) {
+        maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        List<PrincipalVariation> lines = new ArrayList<>();
+        value = 0;
+        depthReached = 0;
+        ordering.startSearch();
+        state = s.clone();
+        DraughtsNode node = new DraughtsNode(state, Zobrist.hash(state));
+        path[base] = node.getHash();
+        reversible[0] = base;
+        terms.reset(state);
+        List<Move> rootMoves = new ArrayList<>(state.getMoves());
+        int k = Math.min(count, rootMoves.size());
+        if (k <= 0) {
+            return lines;
+        } else if (rootMoves.size() == 1) {
+            // nothing to choose, so do not waste time on a search
+            lines.add(new PrincipalVariation(rootMoves, 0, 0));
+            return lines;
+        }
+        Move[] best = new Move[k];
+        int[] scores = new int[k];
+        try {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                long iterationStart = System.nanoTime();
+                long iterationNodes = stats.nodes;
+                List<Move> remaining = new ArrayList<>(rootMoves);
+                for (int i = 0; i < k; i++) {
+                    scores[i] = aspirationSearch(node, remaining, depth,
+                            depth > 1 ? scores[i] : null);
+                    best[i] = node.getBestMove();
+                    remaining.remove(best[i]);
+                }
+
+                // NB this is not done in case of an AIStoppedException
+                // a later root search can find a higher score than an earlier
+                // one (search instability), so sort on score: insertion sort
+                for (int i = 1; i < k; i++) {
+                    for (int j = i; j > 0 && scores[j - 1] < scores[j]; j--) {
+                        int score = scores[j];
+                        scores[j] = scores[j - 1];
+                        scores[j - 1] = score;
+                        Move move = best[j];
+                        best[j] = best[j - 1];
+                        best[j - 1] = move;
+                    }
+                }
+                lines.clear();
+                for (int i = k - 1; i >= 0; i--) {
+                    lines.add(0, new PrincipalVariation(principalVariation(node.getHash(), best[i]),
+                            s.isWhiteToMove() ? scores[i] : -scores[i], depth));
+                    rootMoves.remove(best[i]);
+                    rootMoves.add(0, best[i]);
+                }
+                // the last root search stored the best of the other moves
+                tt.store(node.getHash(), depth, TranspositionTable.EXACT,
+                        toTable(scores[0], 0), best[0]);
+                value = s.isWhiteToMove() ? scores[0] : -scores[0];
+                depthReached = depth;
+                stats.iteration(depth, stats.nodes - iterationNodes,
+                        System.nanoTime() - iterationStart);
+            }
+        } catch (AIStoppedException ex) {  /* keep last completed iteration */ }
+        return lines;
+    }
+
+    /**
+     * @return the line that starts with move first in the state with the given
+     * key, followed by the hash moves of the transposition table; it ends
+     * where the table knows no move, the game ends or a position repeats.
+     */
+    private List<Move> principalVariation(long key, Move first) {
+        List<Move> pv = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        seen.add(key);
+        for (Move m = first; m != null && pv.size() < MoveOrdering.MAX_PLY; m = hashMove(state, key)) {
+            pv.add(m);
+            state.doMove(m);
+            key = Zobrist.update(key, m);
+            if (!seen.add(key) || state.isEndState()) {
+                break;
+            }
+        }
+        for (int i = pv.size() - 1; i >= 0; i--) {
+            state.undoMove(pv.get(i));
+        }
+        return pv;
+    }
+
+    /**
+     * Sets the positions of the game that the next searches can repeat.
+     *
+     * @param keys Zobrist keys of the positions before the root since the
+     * last irreversible move, oldest first, one per ply; only the last
+     * GAME_PLIES are used.
+     * @see GameHistory
+     */
+    public void setGameHistory(long[] keys) {
+        base = Math.min(keys.length, GAME_PLIES);
+        System.arraycopy(keys, keys.length - base, path, 0, base);
+    }
+
+    /** makes a running search stop as soon as possible. **/
+    public void stop() {
+        stopped = true;
+    }
+
+    /** @param strategy how the iterations search the root. **/
+    public void setRootStrategy(RootStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /** @return how the iterations search the root. **/
+    public RootStrategy getRootStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @param probCut ProbCut parameters, or null to search without ProbCut.
+     */
+    public void setProbCut(ProbCut probCut) {
+        this.probCut = probCut;
+    }
+
+    /**
+     * @param extensions search extensions, or null to search without them.
+     */
+    public void setExtensions(Extensions extensions) {
+        this.extensions = extensions;
+    }
+
+    /**
+     * @param endgame endgame table, or null to search without one.
+     */
+    public void setEndgameTable(EndgameTable endgame) {
+        this.endgame = endgame;
+    }
+
+    /**
+     * @return percentage of the leaf evaluations of the last search that
+     * were found in the evaluation cache.
+     */
+    public double getEvalCacheHitRate() {
+        return evalCache.getHitRate();
+    }
+
+    /** @return the transposition table of this search. **/
+    public TranspositionTable getTable() {
+        return tt;
+    }
+
+    /**
+     * @return the best move the transposition table stores for state s, or
+     * null if the table knows no move for s.
+     */
+    public Move getHashMove(DraughtsState s) {
+        return hashMove(s, Zobrist.hash(s));
+    }
+
+    /** @return the hash move of state s with the given key, or null. **/
+    private Move hashMove(DraughtsState s, long key) {
+        int code = TranspositionTable.move(tt.probe(key));
+        if (code != 0) {
+            for (Move m : s.getMoves()) {
+                if (TranspositionTable.encode(m) == code) {
+                    return m;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** @return number of nodes visited in the last search. **/
+    public long getNodes() {
+        return stats.nodes;
+    }
+
+    /** @return duration of the last search in milliseconds. **/
+    public long getSearchTime() {
+        return stats.getTime();
+    }
+
+    /** @return nodes per second in the last search. **/
+    public long getNodesPerSecond() {
+        return stats.time == 0 ? 0 : getNodes() * 1000000000L / stats.time;
+    }
+
+    /**
+     * @return a copy of the statistics of the last search; while a search
+     * runs the counts are not exact.
+     */
+    public SearchStats getStats() {
+        return stats.copy();
+    }
+
+    /** @return number of root searches in the last search. **/
+    public long getRootSearches() {
+        return rootSearches;
+    }
+
+    /**
+     * @return percentage of the root searches of the last search that failed
+     * outside their aspiration window and had to be repeated.
+     */
+    public double getResearchRate() {
+        return rootSearches == 0 ? 0 : 100.0 * rootResearches / rootSearches;
+    }
+
+    /** @return depth of the last completed iteration of the last search. **/
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * @return value of the root of the last search, positive values are good
+     * for white.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return percentage of the cutoffs in the last search that were caused
+     * by the first move of a node.
+     */
+    public double getFirstMoveCutoffRate() {
+        return stats.getFirstMoveCutoffRate();
+    }
+
+    /**
+     * Searches the root with an aspiration window: a narrow window around
+     * the score of the previous iteration. A narrow window gives more
+     * cutoffs, but if the score falls outside it, the search fails low or
+     * high and has to be repeated with a window that is widened on that side.
+     * The widening doubles with each repetition.
+     *
+     * @param previous score of the previous iteration, or null if there is
+     * none; then the full window is used.
+     * @return value of the root for the player to move
+     */
+    private int aspirationSearch(DraughtsNode node, List<Move> moves, int depth,
+            Integer previous) throws AIStoppedException {
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        int delta = ASPIRATION_WINDOW;
+        if (previous != null && Math.abs(previous) < WIN - MoveOrdering.MAX_PLY) {
+            alpha = previous - delta;
+            beta = previous + delta;
+        }
+        while (true) {
+            rootSearches++;
+            int score = searchRoot(node, moves, depth, alpha, beta);
+            if (score <= alpha && alpha > -INFINITY) {
+                alpha = (int) Math.max((long) alpha - delta, -INFINITY);
+            } else if (score >= beta && beta < INFINITY) {
+                beta = (int) Math.min((long) beta + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta = Math.min(2 * delta, INFINITY / 4);
+            rootResearches++;
+        }
+    }
+
+    /**
+     * MTD(f) (A. Plaat): finds the value of the root with zero-window searches
+     * only. Each search tells whether the value is above or below a test
+     * value; the test values start at the guess and move towards the value
+     * until the lower and upper bound meet. The transposition table makes the
+     * repeated searches of the same tree cheap.
+     *
+     * @param guess first test value; the score of the previous iteration.
+     * @return value of the root for the player to move
+     */
+    private int mtdf(DraughtsNode node, List<Move> moves, int depth, int guess)
+            throws AIStoppedException {
+        int lower = -INFINITY;
+        int upper = INFINITY;
+        int g = guess;
+        Move bestMove = null;
+        while (lower < upper) {
+            int beta = g == lower ? g + 1 : g;
+            rootSearches++;
+            g = searchRoot(node, moves, depth, beta - 1, beta);
+            if (g < beta) {
+                upper = g;
+            } else {
+                // only a fail high proves which move is best
+                lower = g;
+                bestMove = node.getBestMove();
+                moves.remove(bestMove);
+                moves.add(0, bestMove);
+            }
+        }
+        node.setBestMove(bestMove);
+        return g;
+    }
+
+    /**
+     * Principal variation search of the root node that tries the moves in
+     * the given order.
+     *
+     * @param node root node; its best move is set to the best root move.
+     * @param moves all valid moves in the root, in the order to search them.
+     * @param depth search depth
+     * @param alpha
+     * @param beta
+     * @return value of the root for the player to move; fail soft.
+     * @throws AIStoppedException
+     */
+    int searchRoot(DraughtsNode node, List<Move> moves, int depth, int alpha, int beta)
+            throws AIStoppedException {
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        Move bestMove = null;
+        extension[1] = 0;
+        for (Move move : moves) {
+            line[0] = move;
+            reversible[1] = GameHistory.isReversible(move) ? reversible[0] + 1 : 0;
+            state.doMove(move);
+            terms.doMove(move);
+            long child = Zobrist.update(node.getHash(), move);
+            int score;
+            if (bestMove == null) {
+                score = -pvs(child, -beta, -alpha, depth - 1, 1);
+            } else {
+                score = -pvs(child, -alpha - 1, -alpha, depth - 1, 1);
+                if (score > alpha && score < beta) {
+                    score = -pvs(child, -beta, -alpha, depth - 1, 1);
+                }
+            }
+            terms.undoMove(move);
+            state.undoMove(move);
+            if (bestMove == null || score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        node.setBestMove(bestMove);
+        tt.store(node.getHash(), depth, bound(best, alphaOrig, beta),
+                toTable(best, 0), bestMove);
+        return best;
+    }
+
+    /**
+     * Principal variation search of a node that is not the root: the
+     * current state of the search.
+     *
+     * @param key Zobrist key of the state
+     * @param alpha
+     * @param beta
+     * @param depth remaining search depth
+     * @param ply distance of node to the root
+     * @return the value of node for the player to move; fail soft.
+     * @throws AIStoppedException thrown whenever the boolean stopped has been
+     * set to true.
+     */
+    int pvs(long key, int alpha, int beta, int depth, int ply)
+            throws AIStoppedException {
+        if (stopped) {
+            throw new AIStoppedException();
+        }
+        stats.nodes++;
+        if (state.isEndState()) {
+            return -WIN + ply;   // the player to move has lost
+        }
+        path[base + ply] = key;
+        if (isRepetition(ply)) {
+            stats.repetitions++;
+            return 0;
+        }
+        int known = probeTable(ply);
+        if (known != EndgameTable.NOT_FOUND) {
+            return known;
+        } else if (depth == 0) {
+            return quiescence(key, alpha, beta, ply);
+        }
+
+        // Look up this state in the transposition table
+        int alphaOrig = alpha;
+        long entry = tt.probe(key);
+        stats.ttProbes++;
+        if (entry != TranspositionTable.MISS) {
+            stats.ttHits++;
+        }
+        if (entry != TranspositionTable.MISS
+                && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                stats.ttCutoffs++;
+                return score;
+            }
+        }
+
+        // ProbCut: let a shallow search predict the result of this one. Only
+        // in zero-window nodes, and not when captures are forced.
+        if (probCut != null && depth >= probCut.minDepth && beta - alpha == 1
+                && Math.abs(beta) < WIN - MoveOrdering.MAX_PLY
+                && !state.getMoves().get(0).isCapture()) {
+            int shallow = depth - probCut.reduction;
+            int bound = probCut.highBound(beta);
+            if (pvs(key, bound - 1, bound, shallow, ply) >= bound) {
+                stats.probCutPrunes++;
+                return beta;
+            }
+            bound = probCut.lowBound(alpha);
+            if (pvs(key, bound, bound + 1, shallow, ply) <= bound) {
+                stats.probCutPrunes++;
+                return alpha;
+            }
+        }
+
+        // List all possible moves, most promising first
+        int n = generateMoves(ply);
+        Move[] moves = moveStack[ply];
+        Move previous = line[ply - 1];
+        ordering.order(moves, n, TranspositionTable.move(entry), ply, previous);
+
+        int best = -INFINITY;
+        Move bestMove = null;
+        for (int index = 0; index < n; index++) {
+            Move move = moves[index];
+            line[ply] = move;
+            reversible[ply + 1] = GameHistory.isReversible(move) ? reversible[ply] + 1 : 0;
+            state.doMove(move);
+            terms.doMove(move);
+            long child = Zobrist.update(key, move);
+            int newDepth = depth - 1 + extend(move, previous, n, depth, ply);
+            int score;
+            if (index == 0) {
+                score = -pvs(child, -beta, -alpha, newDepth, ply + 1);
+            } else {
+                // scout with a zero window, at reduced depth for late quiet
+                // moves; re-search at full depth if it might be better
+                int reduction = 0;
+                if (depth >= LMR_MIN_DEPTH && index >= LMR_MIN_MOVES
+                        && !move.isCapture() && !move.isPromotion()) {
+                    reduction = LMR[Math.min(depth, LMR.length - 1)][Math.min(index, 63)];
+                }
+                score = -pvs(child, -alpha - 1, -alpha, newDepth - reduction, ply + 1);
+                if (score > alpha && reduction > 0) {
+                    score = -pvs(child, -alpha - 1, -alpha, newDepth, ply + 1);
+                }
+                if (score > alpha && score < beta) {
+                    score = -pvs(child, -beta, -alpha, newDepth, ply + 1);
+                }
+            }
+            terms.undoMove(move);
+            state.undoMove(move);
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        ordering.cutoff(move, ply, depth, previous);
+                        stats.cutoffs++;
+                        if (index == 0) {
+                            stats.firstMoveCutoffs++;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        tt.store(key, depth, bound(best, alphaOrig, beta),
+                toTable(best, ply), bestMove);
+        return best;
+    }
+
+    /**
+     * Adds the extension units of move to those of the line, up to the
+     * maximum per line, and sets extension[ply + 1].
+     *
+     * @param move move searched in the node at distance ply
+     * @param previous move that led to the node
+     * @param n number of moves of the node
+     * @param depth remaining depth of the node
+     * @return number of plies the move is extended: 1 if the units of the
+     * line reach the next multiple of ONE_PLY, else 0.
+     */
+    private int extend(Move move, Move previous, int n, int depth, int ply) {
+        int units = extension[ply];
+        if (extensions != null && ply + depth < MoveOrdering.MAX_PLY - 1) {
+            // an extension only counts if the cap leaves room for it
+            int max = extensions.maxPerLine;
+            if (n == 1 && extensions.singleReply > 0 && units < max) {
+                units = Math.min(units + extensions.singleReply, max);
+                stats.singleReplyExtensions++;
+            }
+            if (move.isCapture() && previous.isCapture() && extensions.recapture > 0
+                    && units < max) {
+                units = Math.min(units + extensions.recapture, max);
+                stats.recaptureExtensions++;
+            }
+        }
+        extension[ply + 1] = units;
+        return units / Extensions.ONE_PLY - extension[ply] / Extensions.ONE_PLY;
+    }
+
+    /**
+     * @return bound type of a fail soft score from a search with window
+     * [alpha,beta].
+     */
+    static int bound(int score, int alpha, int beta) {
+        if (score <= alpha) {
+            return TranspositionTable.UPPER;
+        } else if (score >= beta) {
+            return TranspositionTable.LOWER;
+        } else {
+            return TranspositionTable.EXACT;
+        }
+    }
+
+    /**
+     * Quiescence search: a state in which the player to move has to capture
+     * is not evaluated, because its static value is unreliable; instead all
+     * captures are searched until a quiet state is reached. Capturing is
+     * compulsory, so, unlike in chess, the player to move cannot decline the
+     * captures and take the static value (no stand pat). The sequences end
+     * because every capture removes pieces from the board.
+     *
+     * @param key Zobrist key of the state at the depth horizon
+     * @param alpha
+     * @param beta
+     * @param ply distance of state to the root
+     * @return the value of the state for the player to move; fail soft.
+     * @throws AIStoppedException
+     */
+    int quiescence(long key, int alpha, int beta, int ply)
+            throws AIStoppedException {
+        if (stopped) {
+            throw new AIStoppedException();
+        }
+        stats.nodes++;
+        stats.qnodes++;
+        if (state.isEndState()) {
+            return -WIN + ply;   // the player to move has lost
+        }
+        int known = probeTable(ply);
+        if (known != EndgameTable.NOT_FOUND) {
+            return known;
+        }
+        if (!state.getMoves().get(0).isCapture() || ply >= MoveOrdering.MAX_PLY) {
+            // quiet state: in killer draughts either all or no moves capture
+            long cached = evalCache.probe(key);
+            int score;
+            if (cached != EvalCache.MISS) {
+                score = (int) cached;
+            } else {
+                score = evaluator.evaluate(state, terms);
+                evalCache.store(key, score);
+            }
+            return state.isWhiteToMove() ? score : -score;
+        }
+
+        int n = generateMoves(ply);
+        Move[] moves = moveStack[ply];
+        int best = -INFINITY;
+        for (int i = 0; i < n; i++) {
+            Move move = moves[i];
+            state.doMove(move);
+            terms.doMove(move);
+            int score = -quiescence(Zobrist.update(key, move),
+                    -beta, -alpha, ply + 1);
+            terms.undoMove(move);
+            state.undoMove(move);
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return whether the node at distance ply repeats a position of the
+     * game or of the line, with the same player to move; only the positions
+     * after the last irreversible move are compared.
+     */
+    private boolean isRepetition(int ply) {
+        int i = base + ply;
+        long key = path[i];
+        for (int j = i - 4; j >= i - reversible[ply]; j -= 2) {
+            if (path[j] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the moves of the state into moveStack[ply], without an iterator.
+     *
+     * @return number of moves
+     */
+    private int generateMoves(int ply) {
+        List<Move> moves = state.getMoves();
+        int n = moves.size();
+        if (moveStack[ply].length < n) {
+            moveStack[ply] = new Move[2 * n];
+        }
+        Move[] buffer = moveStack[ply];
+        for (int i = 0; i < n; i++) {
+            buffer[i] = moves.get(i);
+        }
+        return n;
+    }
+
+    /**
+     * @return the score of the state according to the endgame table, for the
+     * player to move, or NOT_FOUND if it is not in the table.
+     */
+    private int probeTable(int ply) {
+        if (endgame == null || terms.getPieceCount() > endgame.getMaxPieces()) {
+            return EndgameTable.NOT_FOUND;
+        }
+        int v = endgame.probe(state);
+        if (v == EndgameTable.NOT_FOUND) {
+            return v;
+        }
+        stats.endgameHits++;
+        return tableScore(v, ply);
+    }
+
+    /**
+     * @return the score for the player to move of a state that the endgame
+     * table gives value v, at distance ply from the root.
+     */
+    static int tableScore(int v, int ply) {
+        if (v == EndgameTable.DRAW) {
+            return 0;
+        }
+        int distance = ply + EndgameTable.plies(v);
+        return v > 0 ? TABLE_WIN - distance : -TABLE_WIN + distance;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="win scores in the table">
+    /**
+     * Win scores, of the search as well as of the endgame table, count plies
+     * from the root; in the table they count plies from the stored node, so
+     * that they are valid wherever the node occurs.
+     */
+    static int toTable(int score, int ply) {
+        if (isWinScore(score)) {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (isWinScore(score)) {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
+    }
+
+    /** @return whether score is a win or loss in a number of plies (see WIN and TABLE_WIN). **/
+    private static boolean isWinScore(int score) {
+        int a = Math.abs(score);
+        return a > WIN - MoveOrdering.MAX_PLY
+                || (a > TABLE_WIN - TABLE_HORIZON && a <= TABLE_WIN);
+    }
+    //</editor-fold>
+}
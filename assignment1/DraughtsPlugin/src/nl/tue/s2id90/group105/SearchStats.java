@@ -0,0 +1,224 @@
+package nl.tue.s2id90.group105;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counters of one search: nodes, quiescence nodes, transposition table
+ * probes, hits and cutoffs, beta cutoffs, ProbCut prunes, endgame table hits,
+ * extensions, repetitions, and the nodes and time of every iteration. Each thread counts in its own SearchStats with plain
+ * longs, so counting costs next to nothing; the counters of the threads are
+ * merged with add once the search is done.
+ *
+ * <p>
+ * The effective branching factor is the number of nodes of the last
+ * completed iteration divided by that of the iteration before it.
+ * </p>
+ */
+public class SearchStats {
+    /** nodes visited, including the quiescence nodes. **/
+    long nodes;
+    /** nodes visited by the quiescence search. **/
+    long qnodes;
+    /** transposition table lookups, how many found the state, and how many ended the node. **/
+    long ttProbes, ttHits, ttCutoffs;
+    /** beta cutoffs, and how many of them were caused by the first move. **/
+    long cutoffs, firstMoveCutoffs;
+    /** nodes pruned by ProbCut. **/
+    long probCutPrunes;
+    /** nodes whose value was found in the endgame table. **/
+    long endgameHits;
+    /** number of moves that got a single reply or a recapture extension. **/
+    long singleReplyExtensions, recaptureExtensions;
+    /** nodes that were scored as a draw by repetition. **/
+    long repetitions;
+    /** duration of the search in nanoseconds. **/
+    long time;
+
+    /** iterationNodes[d] and iterationTime[d] are the nodes and nanoseconds of iteration d. **/
+    private final long[] iterationNodes = new long[MoveOrdering.MAX_PLY + 1];
+    private final long[] iterationTime = new long[MoveOrdering.MAX_PLY + 1];
+    /** deepest completed iteration, 0 if none. **/
+    private int depth;
+
+    /** sets all counters to 0. **/
+    public void reset() {
+        nodes = qnodes = 0;
+        ttProbes = ttHits = ttCutoffs = 0;
+        cutoffs = firstMoveCutoffs = 0;
+        probCutPrunes = endgameHits = 0;
+        singleReplyExtensions = recaptureExtensions = 0;
+        repetitions = 0;
+        time = 0;
+        for (int d = 1; d <= depth; d++) {
+            iterationNodes[d] = iterationTime[d] = 0;
+        }
+        depth = 0;
+    }
+
+    /**
+     * Records that iteration d completed.
+     *
+     * @param nodes number of nodes of the iteration
+     * @param time duration of the iteration in nanoseconds
+     */
+    void iteration(int d, long nodes, long time) {
+        iterationNodes[d] = nodes;
+        iterationTime[d] = time;
+        depth = d;
+    }
+
+    /**
+     * Adds the counters of other, the statistics of another thread of the
+     * same search, to these. The iterations and the time are those of this
+     * search; they are not added.
+     *
+     * @return this
+     */
+    public SearchStats add(SearchStats other) {
+        nodes += other.nodes;
+        qnodes += other.qnodes;
+        ttProbes += other.ttProbes;
+        ttHits += other.ttHits;
+        ttCutoffs += other.ttCutoffs;
+        cutoffs += other.cutoffs;
+        firstMoveCutoffs += other.firstMoveCutoffs;
+        probCutPrunes += other.probCutPrunes;
+        endgameHits += other.endgameHits;
+        singleReplyExtensions += other.singleReplyExtensions;
+        recaptureExtensions += other.recaptureExtensions;
+        repetitions += other.repetitions;
+        return this;
+    }
+
+    /** @return a copy of these statistics. **/
+    public SearchStats copy() {
+        SearchStats s = new SearchStats().add(this);
+        s.time = time;
+        for (int d = 1; d <= depth; d++) {
+            s.iteration(d, iterationNodes[d], iterationTime[d]);
+        }
+        return s;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getQuiescenceNodes() {
+        return qnodes;
+    }
+
+    public long getTableProbes() {
+        return ttProbes;
+    }
+
+    public long getTableHits() {
+        return ttHits;
+    }
+
+    public long getTableCutoffs() {
+        return ttCutoffs;
+    }
+
+    public long getProbCutPrunes() {
+        return probCutPrunes;
+    }
+
+    public long getEndgameHits() {
+        return endgameHits;
+    }
+
+    public long getSingleReplyExtensions() {
+        return singleReplyExtensions;
+    }
+
+    public long getRecaptureExtensions() {
+        return recaptureExtensions;
+    }
+
+    public long getRepetitions() {
+        return repetitions;
+    }
+
+    /** @return duration of the search in milliseconds. **/
+    public long getTime() {
+        return time / 1000000;
+    }
+
+    /** @return nodes per second. **/
+    public long getNodesPerSecond() {
+        return time == 0 ? 0 : nodes * 1000000000L / time;
+    }
+
+    /** @return percentage of the table probes that found the state. **/
+    public double getTableHitRate() {
+        return ttProbes == 0 ? 0 : 100.0 * ttHits / ttProbes;
+    }
+
+    /**
+     * @return percentage of the cutoffs that were caused by the first move
+     * of a node; close to 100 in a well-ordered tree.
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : 100.0 * firstMoveCutoffs / cutoffs;
+    }
+
+    /** @return depth of the last completed iteration. **/
+    public int getDepth() {
+        return depth;
+    }
+
+    /** @return number of nodes of iteration d. **/
+    public long getIterationNodes(int d) {
+        return iterationNodes[d];
+    }
+
+    /** @return duration of iteration d in milliseconds. **/
+    public long getIterationTime(int d) {
+        return iterationTime[d] / 1000000;
+    }
+
+    /** @return effective branching factor, or 0 if fewer than two iterations completed. **/
+    public double getEffectiveBranchingFactor() {
+        return depth < 2 || iterationNodes[depth - 1] == 0 ? 0
+                : (double) iterationNodes[depth] / iterationNodes[depth - 1];
+    }
+
+    /**
+     * @return the counters by name, for tools that sum them over many
+     * searches (such as the OfflineTournament).
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("nodes", nodes);
+        m.put("qnodes", qnodes);
+        m.put("ttProbes", ttProbes);
+        m.put("ttHits", ttHits);
+        m.put("ttCutoffs", ttCutoffs);
+        m.put("cutoffs", cutoffs);
+        m.put("firstMoveCutoffs", firstMoveCutoffs);
+        m.put("probCutPrunes", probCutPrunes);
+        m.put("endgameHits", endgameHits);
+        m.put("singleReplyExtensions", singleReplyExtensions);
+        m.put("recaptureExtensions", recaptureExtensions);
+        m.put("repetitions", repetitions);
+        m.put("timeMs", getTime());
+        return m;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder iterations = new StringBuilder();
+        for (int d = 1; d <= depth; d++) {
+            iterations.append(d == 1 ? "" : " ").append(getIterationTime(d));
+        }
+        return String.format("nodes=%d, qnodes=%d, nps=%d, tt probes=%d hits=%.1f%% cutoffs=%d,"
+                + " first move cutoffs=%.1f%%, probcut=%d, endgame hits=%d, extensions=%d+%d,"
+                + " ebf=%.2f, iteration ms=[%s]",
+                nodes, qnodes, getNodesPerSecond(), ttProbes, getTableHitRate(), ttCutoffs,
+                getFirstMoveCutoffRate(), probCutPrunes, endgameHits,
+                singleReplyExtensions, recaptureExtensions,
+                getEffectiveBranchingFactor(), iterations);
+    }
+}
@@ -0,0 +1,216 @@
+package nl.tue.s2id90.group105;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org10x10.dam.game.Move;
+
+/**
+ * Fixed-size transposition table that caches search results by Zobrist key.
+ * The table consists of buckets of two entries: the first entry of a bucket
+ * keeps the deepest result (depth-preferred), the second one always gets
+ * replaced. An entry is a key and a data word that packs the score, the
+ * search depth, the bound type, the best move and the generation.
+ *
+ * <p>
+ * The entries are stored off the Java heap, in one direct ByteBuffer, so
+ * that a large table costs the garbage collector nothing; the table is kept
+ * for the life of its search, over all moves and games. Every search starts
+ * a new generation (newSearch). Entries of earlier generations are still
+ * used, but a depth-preferred entry of an earlier generation is replaced
+ * even by a shallower result, so that the table does not fill up with deep
+ * results of positions that are long gone.
+ * </p>
+ *
+ * <p>
+ * The table can be shared by searches in different threads without locking.
+ * The key field of an entry holds the xor of the key and the data word, so
+ * an entry that is torn by concurrent writes does not verify against the key
+ * of the state and is treated as a miss.
+ * </p>
+ *
+ * @see Zobrist
+ */
+public class TranspositionTable {
+    /** bound type: the score is a lower bound of the value (fail high). **/
+    public static final int LOWER = 1;
+    /** bound type: the score is an upper bound of the value (fail low). **/
+    public static final int UPPER = 2;
+    /** bound type: the score is the exact value. **/
+    public static final int EXACT = 3;
+
+    /** returned by probe if the table has no entry for a key. **/
+    public static final long MISS = 0L;
+
+    /** size of an entry and of a bucket in bytes. **/
+    private static final int ENTRY_BYTES = 16, BUCKET_BYTES = 2 * ENTRY_BYTES;
+
+    /** number of generations; the generation of an entry is 6 bits. **/
+    private static final int GENERATIONS = 64;
+
+    /** number of buckets that getFillRate looks at. **/
+    private static final int FILL_SAMPLE = 1000;
+
+    private final ByteBuffer table;
+    private final int bucketMask;
+
+    /** generation of the current search. **/
+    private int generation;
+
+    /**
+     * @param log2Buckets the table has 2^log2Buckets buckets of two entries
+     * of 16 bytes each; at most 2^25 buckets (1 GB).
+     */
+    public TranspositionTable(int log2Buckets) {
+        if (log2Buckets < 0 || log2Buckets > 25) {
+            throw new IllegalArgumentException("log2Buckets must be 0..25: " + log2Buckets);
+        }
+        table = ByteBuffer.allocateDirect(BUCKET_BYTES << log2Buckets)
+                .order(ByteOrder.nativeOrder());
+        bucketMask = (1 << log2Buckets) - 1;
+    }
+
+    /**
+     * @param megabytes size of the table; it is rounded down to a power of
+     * two, and at least one bucket.
+     * @return an empty table of at most the given size.
+     */
+    public static TranspositionTable ofMegabytes(int megabytes) {
+        long buckets = Math.max(1, ((long) megabytes << 20) / BUCKET_BYTES);
+        return new TranspositionTable(Math.min(25, 63 - Long.numberOfLeadingZeros(buckets)));
+    }
+
+    /** @return size of the table in bytes. **/
+    public int size() {
+        return table.capacity();
+    }
+
+    /** removes all entries. **/
+    public void clear() {
+        for (int i = 0; i < table.capacity(); i += 8) {
+            table.putLong(i, 0L);
+        }
+    }
+
+    /**
+     * Starts a new generation; call before a search. It must not run at the
+     * same time as a search that uses the table: call it before the threads
+     * of the search are started or given their task, which makes the new
+     * generation visible to them without it being volatile.
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    /**
+     * @return percentage of the entries in a sample of the table that were
+     * stored in the current generation.
+     */
+    public double getFillRate() {
+        int buckets = Math.min(FILL_SAMPLE, bucketMask + 1);
+        int filled = 0;
+        for (int i = 0; i < buckets * BUCKET_BYTES; i += ENTRY_BYTES) {
+            long d = table.getLong(i + 8);
+            if (d != 0L && generation(d) == generation) {
+                filled++;
+            }
+        }
+        return 100.0 * filled / (2 * buckets);
+    }
+
+    /**
+     * @param key Zobrist key of a state
+     * @return the data word stored for key, or MISS.
+     */
+    public long probe(long key) {
+        int i = index(key);
+        long d = table.getLong(i + 8);
+        if ((table.getLong(i) ^ d) == key) {
+            return d;
+        }
+        d = table.getLong(i + 24);
+        if ((table.getLong(i + 16) ^ d) == key) {
+            return d;
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores a search result. It goes into the depth-preferred entry of the
+     * bucket if it is at least as deep as the result there, if that entry
+     * holds the same state, or if that entry is of an earlier generation;
+     * otherwise it goes into the always-replace entry.
+     *
+     * @param key Zobrist key of the searched state
+     * @param depth remaining search depth of the result
+     * @param bound one of LOWER, UPPER, EXACT
+     * @param score score of the state
+     * @param move best move in the state, or null
+     */
+    public void store(long key, int depth, int bound, int score, Move move) {
+        int i = index(key);
+        long entry = pack(depth, bound, score, encode(move), generation);
+        long d = table.getLong(i + 8);
+        if ((table.getLong(i) ^ d) == key || depth >= depth(d)
+                || generation(d) != generation) {
+            table.putLong(i, key ^ entry);
+            table.putLong(i + 8, entry);
+        } else {
+            table.putLong(i + 16, key ^ entry);
+            table.putLong(i + 24, entry);
+        }
+    }
+
+    /** @return byte offset of the bucket of key. **/
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_BYTES;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="data word">
+    // bits  0-31: score, 32-39: depth, 40-41: bound, 42-53: move, 54-59: generation
+    private static long pack(int depth, int bound, int score, int move, int generation) {
+        return (score & 0xFFFFFFFFL)
+                | ((long) depth << 32)
+                | ((long) bound << 40)
+                | ((long) move << 42)
+                | ((long) generation << 54);
+    }
+
+    /** @return the score in data word entry. **/
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    /** @return the search depth in data word entry. **/
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /** @return the bound type in data word entry. **/
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /** @return the encoded best move in data word entry, 0 if none. **/
+    public static int move(long entry) {
+        return (int) (entry >>> 42) & 0xFFF;
+    }
+
+    /** @return the generation of the search that stored data word entry. **/
+    static int generation(long entry) {
+        return (int) (entry >>> 54) & (GENERATIONS - 1);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="move encoding">
+    /**
+     * Encodes a move by its begin and end field. This is not unique for
+     * captures that can take different routes, but it is enough to find
+     * the move back in nearly all cases.
+     *
+     * @return code of move m, or 0 if m is null.
+     */
+    public static int encode(Move m) {
+        return m == null ? 0 : m.getBeginField() << 6 | m.getEndField();
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,520 @@
+package nl.tue.s2id90.group105;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Young Brothers Wait (YBWC) parallel alpha-beta search on a ForkJoinPool.
+ * In a node the eldest child is searched first, by the thread that owns the
+ * node; only when that did not cause a cutoff, the other children (the young
+ * brothers) are forked as tasks, each on its own clone of the state. A node
+ * with forked children is a split point. When a child causes a cutoff, the
+ * split point is aborted, which makes all its running children stop at their
+ * next node.
+ *
+ * <p>
+ * As in Search, a task keeps the EvalState terms of its state up to date as
+ * it does and undoes moves, so that a leaf is evaluated incrementally, and
+ * it looks leaves up in the evaluation cache of its thread first. Positions
+ * that repeat a position of the game or of the line are draws, and positions
+ * with few pieces are looked up in the optional endgame table.
+ * </p>
+ *
+ * <p>
+ * Unlike the lazy SMP search, the threads do not depend on each other through
+ * the transposition table: it stores the score and bound of every node, but
+ * it is only used to search the best move of the previous iteration first,
+ * never to cut off. The value of a search is therefore that of a plain
+ * fixed-depth alpha-beta search, whatever the number of threads.
+ * </p>
+ *
+ * @see LazySmpSearch
+ */
+public class YbwcSearch {
+    /** nodes with less remaining depth are not split, by default. **/
+    static final int MIN_SPLIT_DEPTH = 3;
+
+    private final Evaluator evaluator;
+    /** nodes with less remaining depth are not split. **/
+    private final int minSplitDepth;
+    private final ForkJoinPool pool;
+    private final TranspositionTable tt = new TranspositionTable(Search.TABLE_BITS);
+    /** static evaluations of earlier leaves, one cache per thread of the pool. **/
+    private final ThreadLocal<EvalCache> evalCaches
+            = ThreadLocal.withInitial(() -> new EvalCache(Search.EVAL_CACHE_BITS));
+    private final LongAdder nodes = new LongAdder();
+    /** nodes and time of the iterations of the last search. **/
+    private final SearchStats stats = new SearchStats();
+
+    /** exact values of positions with few pieces, or null. **/
+    private EndgameTable endgame;
+
+    /** keys of the game positions before the root; see setGameHistory. **/
+    private long[] history = new long[0];
+
+    /**
+     * boolean that indicates that the search has to stop as soon as possible.
+     * It is set from the timer thread, hence volatile.
+     */
+    private volatile boolean stopped;
+
+    /** best move in the root of the current iteration. **/
+    private Move rootBestMove;
+
+    private int depthReached;
+    private int value;
+
+    /**
+     * @param evaluator evaluation function for the leaves of the search; it
+     * is called from all threads at the same time.
+     * @param threads number of threads in the pool
+     */
+    public YbwcSearch(Evaluator evaluator, int threads) {
+        this(evaluator, threads, MIN_SPLIT_DEPTH);
+    }
+
+    /**
+     * @param evaluator evaluation function for the leaves of the search
+     * @param threads number of threads in the pool
+     * @param minSplitDepth nodes with less remaining depth are searched
+     * serially; with Integer.MAX_VALUE no node is split, which makes this a
+     * serial alpha-beta search with the same move ordering.
+     */
+    public YbwcSearch(Evaluator evaluator, int threads, int minSplitDepth) {
+        this.evaluator = evaluator;
+        this.pool = new ForkJoinPool(threads);
+        this.minSplitDepth = minSplitDepth;
+    }
+
+    /**
+     * Iterative deepening: searches depth 1, 2, 3, ... until the search is
+     * stopped or maxDepth is reached, and returns the best move of the last
+     * completed iteration.
+     *
+     * @param s state to search
+     * @param maxDepth upper bound on the search depth; at most
+     * Search.MAX_DEPTH
+     * @return best move found, or null if no iteration completed.
+     */
+    public Move search(DraughtsState s, int maxDepth) {
+        maxDepth = Math.min(maxDepth, Search.MAX_DEPTH);
+        long start = System.nanoTime();
+        stopped = false;
+        nodes.reset();
+        stats.reset();
+        depthReached = 0;
+        value = 0;
+        Move bestMove = null;
+        List<Move> moves = s.getMoves();
+        if (moves.size() < 2) {
+            return moves.isEmpty() ? null : moves.get(0);
+        }
+        tt.newSearch();
+        long key = Zobrist.hash(s);
+        long[] path = new long[Search.GAME_PLIES + MoveOrdering.MAX_PLY + 1];
+        System.arraycopy(history, 0, path, 0, history.length);
+        int[] reversible = new int[MoveOrdering.MAX_PLY + 1];
+        reversible[0] = history.length;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long iterationStart = System.nanoTime(), iterationNodes = nodes.sum();
+            Line line = new Line(s.clone(), path.clone(), reversible.clone());
+            Integer score = pool.invoke(new NodeTask(line, key, null,
+                    -Search.INFINITY, Search.INFINITY, depth, 0, null));
+            if (score == null) {
+                break;   // stopped: keep the last completed iteration
+            }
+            bestMove = rootBestMove;
+            value = s.isWhiteToMove() ? score : -score;
+            depthReached = depth;
+            stats.iteration(depth, nodes.sum() - iterationNodes,
+                    System.nanoTime() - iterationStart);
+            if (Math.abs(score) > Search.WIN - MoveOrdering.MAX_PLY) {
+                break;
+            }
+        }
+        stats.time = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    /**
+     * Sets the positions of the game that the next searches can repeat.
+     *
+     * @param keys Zobrist keys of the positions before the root since the
+     * last irreversible move, oldest first, one per ply; only the last
+     * Search.GAME_PLIES are used.
+     * @see GameHistory
+     */
+    public void setGameHistory(long[] keys) {
+        history = Arrays.copyOfRange(keys,
+                keys.length - Math.min(keys.length, Search.GAME_PLIES), keys.length);
+    }
+
+    /**
+     * @param endgame endgame table, or null to search without one.
+     */
+    public void setEndgameTable(EndgameTable endgame) {
+        this.endgame = endgame;
+    }
+
+    /** makes a running search stop as soon as possible. **/
+    public void stop() {
+        stopped = true;
+    }
+
+    /** ends the threads of the pool; this search can not be used afterwards. **/
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /** @return number of nodes visited by all threads in the last search. **/
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * @return statistics of the last search: its nodes, time and iterations;
+     * the other counters are not kept by this search.
+     */
+    public SearchStats getStats() {
+        SearchStats copy = stats.copy();
+        copy.nodes = getNodes();
+        return copy;
+    }
+
+    /** @return depth of the last completed iteration of the last search. **/
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * @return value of the root of the last search, positive values are good
+     * for white.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * A node with forked children. The children report their scores to the
+     * split point, which keeps the best score and window of the node.
+     */
+    private final class SplitPoint {
+        final SplitPoint parent;
+        final int beta;
+        int alpha;
+        int best;
+        Move bestMove;
+        volatile boolean aborted;
+
+        SplitPoint(SplitPoint parent, int alpha, int beta, int best, Move bestMove) {
+            this.parent = parent;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.best = best;
+            this.bestMove = bestMove;
+        }
+
+        synchronized int alpha() {
+            return alpha;
+        }
+
+        /** registers the score of child move m; aborts on a cutoff. **/
+        synchronized void report(int score, Move m) {
+            if (score > best) {
+                best = score;
+                bestMove = m;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        aborted = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return whether the search below split point sp has to stop. **/
+    private boolean isAborted(SplitPoint sp) {
+        if (stopped) {
+            return true;
+        }
+        for (; sp != null; sp = sp.parent) {
+            if (sp.aborted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The position of a task: its own copy of the state, with the evaluation
+     * terms and the keys of the line from the root, which the task keeps up
+     * to date as it does and undoes moves. A forked task gets a copy.
+     */
+    private final class Line {
+        final DraughtsState state;
+        final EvalState terms;
+        /**
+         * the keys of the game positions before the root, followed by those
+         * of the line: the node at distance p has key path[history.length + p].
+         */
+        final long[] path;
+        /**
+         * reversible[p] is the number of reversible moves (see GameHistory)
+         * that lead up to the node at distance p.
+         */
+        final int[] reversible;
+        /** evaluation cache of the thread that runs the task; set when it starts. **/
+        EvalCache evalCache;
+
+        Line(DraughtsState state, long[] path, int[] reversible) {
+            this.state = state;
+            this.terms = evaluator.createTerms();
+            this.terms.reset(state);
+            this.path = path;
+            this.reversible = reversible;
+        }
+
+        /** @return a copy of this line, for a young brother. **/
+        Line fork() {
+            return new Line(state.clone(), path.clone(), reversible.clone());
+        }
+
+        /** does move m in the node at distance ply. **/
+        void doMove(Move m, int ply) {
+            reversible[ply + 1] = GameHistory.isReversible(m) ? reversible[ply] + 1 : 0;
+            state.doMove(m);
+            terms.doMove(m);
+        }
+
+        void undoMove(Move m) {
+            terms.undoMove(m);
+            state.undoMove(m);
+        }
+
+        /**
+         * @return whether the node at distance ply repeats a position of the
+         * game or of the line; see Search.
+         */
+        boolean isRepetition(int ply) {
+            int i = history.length + ply;
+            long key = path[i];
+            for (int j = i - 4; j >= i - reversible[ply]; j -= 2) {
+                if (path[j] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** @return static value of the state for the player to move. **/
+        int evaluate(long key) {
+            long cached = evalCache.probe(key);
+            int score;
+            if (cached != EvalCache.MISS) {
+                score = (int) cached;
+            } else {
+                score = evaluator.evaluate(state, terms);
+                evalCache.store(key, score);
+            }
+            return state.isWhiteToMove() ? score : -score;
+        }
+
+        /**
+         * @return the score of the state according to the endgame table, for
+         * the player to move, or NOT_FOUND if it is not in the table.
+         */
+        int probeTable(int ply) {
+            if (endgame == null || terms.getPieceCount() > endgame.getMaxPieces()) {
+                return EndgameTable.NOT_FOUND;
+            }
+            int v = endgame.probe(state);
+            return v == EndgameTable.NOT_FOUND ? v : Search.tableScore(v, ply);
+        }
+    }
+
+    /**
+     * Searches a node, or, if move is not null, the child of the node that
+     * is reached by move, on behalf of split point parent.
+     */
+    private final class NodeTask extends RecursiveTask<Integer> {
+        private final Line line;
+        private final long key;
+        private final Move move;
+        private final int alpha, beta, depth, ply;
+        private final SplitPoint parent;
+
+        NodeTask(Line line, long key, Move move, int alpha, int beta,
+                int depth, int ply, SplitPoint parent) {
+            this.line = line;
+            this.key = key;
+            this.move = move;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.depth = depth;
+            this.ply = ply;
+            this.parent = parent;
+        }
+
+        /** @return score of the node, or null if the search was aborted. **/
+        @Override
+        protected Integer compute() {
+            line.evalCache = evalCaches.get();
+            try {
+                if (move == null) {
+                    return search(line, key, alpha, beta, depth, ply, parent);
+                }
+                // a young brother: use the window of its parent at this moment
+                line.doMove(move, ply - 1);
+                int score = -search(line, Zobrist.update(key, move),
+                        -parent.beta, -parent.alpha(), depth, ply, parent);
+                parent.report(score, move);
+                return score;
+            } catch (AIStoppedException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Negamax alpha-beta search of a node with young brothers wait splitting.
+     *
+     * @return the value of state for the player to move; fail soft.
+     * @throws AIStoppedException if the search was stopped or an ancestor
+     * split point was aborted.
+     */
+    int search(Line line, long key, int alpha, int beta, int depth,
+            int ply, SplitPoint parent) throws AIStoppedException {
+        if (isAborted(parent)) {
+            throw new AIStoppedException();
+        }
+        nodes.increment();
+        DraughtsState state = line.state;
+        if (state.isEndState()) {
+            return -Search.WIN + ply;   // the player to move has lost
+        }
+        line.path[history.length + ply] = key;
+        // the root is searched even if it repeats or is in the table
+        if (ply > 0) {
+            if (line.isRepetition(ply)) {
+                return 0;
+            }
+            int known = line.probeTable(ply);
+            if (known != EndgameTable.NOT_FOUND) {
+                return known;
+            }
+        }
+        if (depth == 0) {
+            return quiescence(line, key, alpha, beta, ply, parent);
+        }
+        int alphaOrig = alpha;
+
+        // hash move first
+        List<Move> moves = new ArrayList<>(state.getMoves());
+        long entry = tt.probe(key);
+        int hashMove = TranspositionTable.move(entry);
+        for (int i = 1; i < moves.size(); i++) {
+            if (TranspositionTable.encode(moves.get(i)) == hashMove) {
+                moves.add(0, moves.remove(i));
+                break;
+            }
+        }
+
+        // the eldest brother
+        Move bestMove = moves.get(0);
+        line.doMove(bestMove, ply);
+        int best = -search(line, Zobrist.update(key, bestMove), -beta, -alpha,
+                depth - 1, ply + 1, parent);
+        line.undoMove(bestMove);
+        if (best > alpha) {
+            alpha = best;
+        }
+
+        if (alpha < beta && moves.size() > 1) {
+            if (depth < minSplitDepth) {
+                // too little work left to be worth a split
+                for (int i = 1; i < moves.size() && alpha < beta; i++) {
+                    Move m = moves.get(i);
+                    line.doMove(m, ply);
+                    int score = -search(line, Zobrist.update(key, m), -beta, -alpha,
+                            depth - 1, ply + 1, parent);
+                    line.undoMove(m);
+                    if (score > best) {
+                        best = score;
+                        bestMove = m;
+                        alpha = Math.max(alpha, score);
+                    }
+                }
+            } else {
+                // the young brothers, in parallel
+                SplitPoint sp = new SplitPoint(parent, alpha, beta, best, bestMove);
+                List<NodeTask> tasks = new ArrayList<>();
+                for (int i = 1; i < moves.size(); i++) {
+                    tasks.add(new NodeTask(line.fork(), key, moves.get(i),
+                            0, 0, depth - 1, ply + 1, sp));
+                }
+                ForkJoinTask.invokeAll(tasks);
+                if (isAborted(parent)) {
+                    throw new AIStoppedException();
+                }
+                // sp is only aborted by a cutoff, after which best is final
+                best = sp.best;
+                bestMove = sp.bestMove;
+            }
+        }
+
+        if (ply == 0) {
+            rootBestMove = bestMove;
+        }
+        tt.store(key, depth, Search.bound(best, alphaOrig, beta),
+                Search.toTable(best, ply), bestMove);
+        return best;
+    }
+
+    /**
+     * Serial quiescence search; see Search#quiescence.
+     */
+    private int quiescence(Line line, long key, int alpha, int beta, int ply,
+            SplitPoint parent) throws AIStoppedException {
+        if (isAborted(parent)) {
+            throw new AIStoppedException();
+        }
+        nodes.increment();
+        DraughtsState state = line.state;
+        if (state.isEndState()) {
+            return -Search.WIN + ply;
+        }
+        int known = line.probeTable(ply);
+        if (known != EndgameTable.NOT_FOUND) {
+            return known;
+        }
+        List<Move> moves = state.getMoves();
+        if (!moves.get(0).isCapture() || ply >= MoveOrdering.MAX_PLY) {
+            return line.evaluate(key);
+        }
+        int best = -Search.INFINITY;
+        for (Move m : moves) {
+            line.doMove(m, ply);
+            int score = -quiescence(line, Zobrist.update(key, m), -beta, -alpha,
+                    ply + 1, parent);
+            line.undoMove(m);
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+}
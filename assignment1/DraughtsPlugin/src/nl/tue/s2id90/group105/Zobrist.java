@@ -0,0 +1,59 @@
+package nl.tue.s2id90.group105;
+
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Zobrist hashing of draughts states. Every (field, piece) combination and
+ * the side to move get a random 64-bit number; the key of a state is the xor
+ * of the numbers of its occupied fields, and of the side number if white is
+ * to move. Because xor is its own inverse, the key of a successor state can
+ * be computed from the key of its parent and the move.
+ */
+public final class Zobrist {
+    /** random numbers per field (1..50) and piece (WHITEPIECE..BLACKKING). **/
+    private static final long[][] PIECE = new long[51][5];
+
+    /** random number that is part of the key when white is to move. **/
+    private static final long WHITE_TO_MOVE;
+
+    static {
+        Random random = new Random(105);    // fixed seed: keys must be stable
+        for (int f = 1; f <= 50; f++) {
+            for (int p = DraughtsState.WHITEPIECE; p <= DraughtsState.BLACKKING; p++) {
+                PIECE[f][p] = random.nextLong();
+            }
+        }
+        WHITE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() { }
+
+    /** @return the key of the given state, computed from scratch. **/
+    public static long hash(DraughtsState state) {
+        int[] pieces = state.getPieces();
+        long key = state.isWhiteToMove() ? WHITE_TO_MOVE : 0L;
+        for (int f = 1; f <= 50; f++) {
+            int piece = pieces[f];
+            if (piece != DraughtsState.EMPTY) {
+                key ^= PIECE[f][piece];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @param key key of a state s
+     * @param m a valid move in s
+     * @return the key of the state that results from doing m in s.
+     */
+    public static long update(long key, Move m) {
+        key ^= PIECE[m.getBeginField()][m.getBeginPiece()];
+        key ^= PIECE[m.getEndField()][m.getEndPiece()];
+        for (int i = 0; i < m.getCaptureCount(); i++) {
+            key ^= PIECE[m.getCapturedField(i)][m.getCapturedPiece(i)];
+        }
+        return key ^ WHITE_TO_MOVE;
+    }
+}
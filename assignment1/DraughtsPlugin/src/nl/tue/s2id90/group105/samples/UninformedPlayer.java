@@ -1,5 +1,6 @@
 package nl.tue.s2id90.group105.samples;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import nl.tue.s2id90.draughts.DraughtsState;
@@ -20,7 +21,7 @@ public class UninformedPlayer extends DraughtsPlayer {
     @Override
     /** @return a random move **/
     public Move getMove(DraughtsState s) {
-        List<Move> moves = s.getMoves();
+        List<Move> moves = new ArrayList<>(s.getMoves());
         Collections.shuffle(moves);
         return moves.get(0);
     }
@@ -0,0 +1,125 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+import nl.tue.s2id90.group105.Search;
+import org10x10.dam.game.Move;
+
+/**
+ * Measures how many bytes the search allocates per node, with the allocation
+ * counter of the thread (com.sun.management.ThreadMXBean). The move
+ * generator of the AICompetition library allocates the Move objects and the
+ * lists of every node, and DraughtsState.getMoves copies the list, because
+ * the generator clears the list it returned before when it generates the
+ * moves of the next position. The searched state measures those bytes
+ * separately, so that what is left is what the search code allocates.
+ *
+ * <p>
+ * Every position is searched by a new Search, so that every round does the
+ * same work; the first round warms up the JIT compiler, whose escape
+ * analysis removes short-lived objects. In the steady state the search code
+ * should allocate (close to) 0 bytes per node; the total per node is then
+ * almost all move generation.
+ * </p>
+ *
+ * <p>
+ * Usage: AllocationBenchmark [depth] [number of positions] [rounds]
+ * </p>
+ */
+public class AllocationBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        List<int[]> games = games(105, count, 10, 40);
+        MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(depth);
+
+        System.out.format("%5s %12s %16s %16s %16s %10s%n",
+                "round", "nodes", "bytes/node", "generator", "search", "generator%");
+        for (int round = 1; round <= rounds; round++) {
+            long nodes = 0, bytes = 0, generator = 0;
+            for (int[] game : games) {
+                CountingState s = replay(game);
+                Search search = new Search(evaluator);
+                long before = allocated();
+                search.search(s, depth);
+                bytes += allocated() - before;
+                generator += s.bytes;
+                nodes += search.getNodes();
+            }
+            System.out.format("%5d %12d %16.1f %16.1f %16.1f %10.1f%n", round, nodes,
+                    (double) bytes / nodes, (double) generator / nodes,
+                    (double) (bytes - generator) / nodes, 100.0 * generator / bytes);
+        }
+    }
+
+    /** @return number of bytes allocated by this thread so far. **/
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * A state that counts the bytes allocated while it generates its moves.
+     * getMoves and isEndState are the only methods that generate moves.
+     */
+    private static class CountingState extends DraughtsState {
+        long bytes;
+
+        @Override
+        public List<Move> getMoves() {
+            long before = allocated();
+            List<Move> moves = super.getMoves();
+            bytes += allocated() - before;
+            return moves;
+        }
+
+        @Override
+        public boolean isEndState() {
+            long before = allocated();
+            boolean end = super.isEndState();
+            bytes += allocated() - before;
+            return end;
+        }
+    }
+
+    /**
+     * @return count random games, as the indices of their moves in the move
+     * lists, that end in a position in which the player to move has a choice.
+     * @see Positions#random(long, int, int, int)
+     */
+    private static List<int[]> games(long seed, int count, int minPly, int maxPly) {
+        Random random = new Random(seed);
+        List<int[]> games = new ArrayList<>();
+        while (games.size() < count) {
+            DraughtsState s = new DraughtsState();
+            int[] game = new int[minPly + random.nextInt(maxPly - minPly + 1)];
+            int plies = 0;
+            for (; plies < game.length && !s.isEndState(); plies++) {
+                List<Move> moves = s.getMoves();
+                game[plies] = random.nextInt(moves.size());
+                s.doMove(moves.get(game[plies]));
+            }
+            if (plies == game.length && s.getMoves().size() > 1) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    /** @return the position at the end of game, with its moves counted from there on. **/
+    private static CountingState replay(int[] game) {
+        CountingState s = new CountingState();
+        for (int index : game) {
+            s.doMove(s.getMoves().get(index));
+        }
+        s.bytes = 0;
+        return s;
+    }
+}
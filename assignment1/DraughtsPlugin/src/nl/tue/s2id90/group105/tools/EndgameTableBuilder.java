@@ -0,0 +1,252 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.draughts.MyMoveGeneratorFactory;
+import nl.tue.s2id90.group105.EndgameTable;
+import nl.tue.s2id90.group105.EndgameTable.Slice;
+import org10x10.dam.game.BoardState;
+import org10x10.dam.game.Move;
+import org10x10.dam.game.MoveGenerator;
+
+/**
+ * Generates the endgame table of MyDraughtsPlayerV2 by retrograde analysis,
+ * with the killer rules move generator of the AICompetition.
+ *
+ * <p>
+ * The slices are solved in an order in which every capture and promotion
+ * leads to a slice that has been solved before: fewer pieces first and, for
+ * the same number of pieces, fewer men first. A slice is solved in passes:
+ * pass k finds the positions that are won or lost in exactly k plies. A
+ * position is won in k plies if a move leads to a position that is lost in
+ * k - 1 plies, and lost in k plies if all moves lead to won positions and the
+ * longest of these wins takes k - 1 plies. Positions that are still open when
+ * no pass finds anything new any more are draws. The positions of a pass are
+ * handled in parallel on a ForkJoinPool.
+ * </p>
+ *
+ * <p>
+ * Usage: EndgameTableBuilder [max pieces] [threads] [file]; at most
+ * EndgameTable.MAX_PIECES pieces.
+ * </p>
+ * Copy the file next to MyDraughtsPlayerV2 to use it.
+ */
+public class EndgameTableBuilder {
+    /** value of a position that is not decided yet, during generation. **/
+    private static final byte OPEN = Byte.MIN_VALUE;
+
+    /** longest distance that fits in a value. **/
+    private static final int MAX_PLIES = EndgameTable.plies(Byte.MAX_VALUE);
+
+    /** the scratch space of one thread. **/
+    private static class Worker {
+        final BoardState bs = new BoardState(10, 10);
+        final MoveGenerator generator = MyMoveGeneratorFactory.create(bs, true);
+        final int[] pieces = new int[51];
+    }
+
+    private final int maxPieces;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+    private final Map<Integer, Slice> slices = new HashMap<>();
+    private final Map<Integer, byte[]> values = new HashMap<>();
+    private int longest = 0;
+
+    EndgameTableBuilder(int maxPieces) {
+        EndgameTable.checkPieces(maxPieces);
+        this.maxPieces = maxPieces;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxPieces = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        String file = args.length > 2 ? args[2] : "endgame.tb";
+
+        EndgameTableBuilder builder = new EndgameTableBuilder(maxPieces);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Slice> order = builder.order();
+        List<byte[]> solved = new ArrayList<>();
+        try {
+            for (Slice slice : order) {
+                long start = System.currentTimeMillis();
+                solved.add(builder.solve(slice, pool));
+                System.out.format("%s: %d positions in %d ms%n", slice, slice.size(),
+                        System.currentTimeMillis() - start);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            EndgameTable.write(out, maxPieces, order, solved);
+        }
+        System.out.format("longest win: %d plies; table written to %s%n", builder.longest, file);
+    }
+
+    /** @return all slices, in the order in which they must be solved. **/
+    List<Slice> order() {
+        List<Slice> order = new ArrayList<>();
+        for (int wm = 0; wm <= maxPieces; wm++) {
+            for (int wk = 0; wm + wk <= maxPieces; wk++) {
+                for (int bm = 0; wm + wk + bm <= maxPieces; bm++) {
+                    for (int bk = 0; wm + wk + bm + bk <= maxPieces; bk++) {
+                        if (wm + wk > 0 && bm + bk > 0) {
+                            order.add(new Slice(wm, wk, bm, bk));
+                        }
+                    }
+                }
+            }
+        }
+        order.sort(Comparator.comparingInt((Slice s) -> s.wm + s.wk + s.bm + s.bk)
+                .thenComparingInt(s -> s.wm + s.bm));
+        return order;
+    }
+
+    /** @return the values of all positions in slice. **/
+    byte[] solve(Slice slice, ForkJoinPool pool) {
+        byte[] v = new byte[slice.size()];
+        slices.put(key(slice.wm, slice.wk, slice.bm, slice.bk), slice);
+        values.put(key(slice.wm, slice.wk, slice.bm, slice.bk), v);
+
+        // only legal positions take part; the others stay draws
+        int[] open = new int[v.length];
+        int n = 0;
+        int[] pieces = new int[51];
+        for (int i = 0; i < v.length; i++) {
+            if (slice.decode(i, pieces)) {
+                v[i] = OPEN;
+                open[n++] = i;
+            }
+        }
+
+        for (int k = 0; n > 0; k++) {
+            int found = pool.invoke(new Pass(slice, v, open, 0, n, k));
+            if (found == 0 && k > longest + 1) {
+                break;      // no decided position can make a difference any more
+            }
+            if (found > 0 && k > MAX_PLIES) {
+                throw new IllegalStateException(slice + ": distance does not fit in a byte");
+            }
+            if (found > 0) {
+                longest = Math.max(longest, k);
+            }
+            int m = 0;
+            for (int j = 0; j < n; j++) {
+                if (v[open[j]] == OPEN) {
+                    open[m++] = open[j];
+                }
+            }
+            n = m;
+        }
+        for (int j = 0; j < n; j++) {
+            v[open[j]] = EndgameTable.DRAW;
+        }
+        return v;
+    }
+
+    /** pass k over the open positions open[from..to). **/
+    private class Pass extends RecursiveTask<Integer> {
+        final Slice slice;
+        final byte[] v;
+        final int[] open;
+        final int from, to, k;
+
+        Pass(Slice slice, byte[] v, int[] open, int from, int to, int k) {
+            this.slice = slice;
+            this.v = v;
+            this.open = open;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from > 1024) {
+                int mid = (from + to) >>> 1;
+                Pass left = new Pass(slice, v, open, from, mid, k);
+                left.fork();
+                int right = new Pass(slice, v, open, mid, to, k).compute();
+                return right + left.join();
+            }
+            int found = 0;
+            Worker w = workers.get();
+            for (int j = from; j < to; j++) {
+                byte value = decide(w, slice, v, open[j], k);
+                if (value != OPEN) {
+                    v[open[j]] = value;
+                    found++;
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * @return the value of position i of slice if it is won or lost in
+     * exactly k plies, otherwise OPEN.
+     */
+    private byte decide(Worker w, Slice slice, byte[] v, int i, int k) {
+        slice.decode(i, w.pieces);
+        w.bs.setPieces(w.pieces);
+        w.bs.setWhiteToMove(slice.isWhiteToMove(i));
+        List<Move> moves = w.generator.generateMoves(w.bs);
+
+        boolean allWon = true;      // all moves lead to a position won by the opponent
+        int longestWin = -1;
+        for (Move m : moves) {
+            w.bs.moveForward(m);
+            int child = value(w.bs, slice, v);
+            w.bs.moveBackward(m);
+            if (child == OPEN || child == EndgameTable.DRAW) {
+                allWon = false;
+            } else if (child < 0) {
+                if (EndgameTable.plies(child) == k - 1) {
+                    return EndgameTable.win(k);
+                }
+                allWon = false;
+            } else {
+                longestWin = Math.max(longestWin, EndgameTable.plies(child));
+            }
+        }
+        return allWon && longestWin == k - 1 ? EndgameTable.loss(k) : OPEN;
+    }
+
+    /**
+     * @return the value of the position on bs: from v if it is in slice,
+     * otherwise from a slice that was solved before.
+     */
+    private int value(BoardState bs, Slice slice, byte[] v) {
+        int[] pieces = bs.getPieces();
+        int wm = 0, wk = 0, bm = 0, bk = 0;
+        for (int f = 1; f <= 50; f++) {
+            switch (pieces[f]) {
+                case DraughtsState.WHITEPIECE: wm++; break;
+                case DraughtsState.WHITEKING:  wk++; break;
+                case DraughtsState.BLACKPIECE: bm++; break;
+                case DraughtsState.BLACKKING:  bk++; break;
+            }
+        }
+        if ((bs.isWhiteToMove() ? wm + wk : bm + bk) == 0) {
+            return EndgameTable.loss(0);    // the last piece has been captured
+        }
+        int key = key(wm, wk, bm, bk);
+        Slice other = slices.get(key);
+        return (other == slice ? v : values.get(key))[other.index(pieces, bs.isWhiteToMove())];
+    }
+
+    private int key(int wm, int wk, int bm, int bk) {
+        int n = maxPieces + 1;
+        return ((wm * n + wk) * n + bm) * n + bk;
+    }
+}
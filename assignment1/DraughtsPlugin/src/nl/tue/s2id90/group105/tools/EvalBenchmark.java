@@ -0,0 +1,194 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.util.List;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.EvalState;
+import nl.tue.s2id90.group105.EvalWeights;
+
+/**
+ * Compares the evaluation of EvalWeights with the board scans that
+ * MyDraughtsPlayerV2 used before: material (piecesCount) and tempo
+ * (tempiCount). The default weights are the weights of those scans, so for a
+ * fixed set of positions both must give the same scores; the benchmark
+ * checks that, and it reports the number of evaluations per second of both.
+ * The tempo scan uses the rows of the board, (f - 1) / 5; the player used
+ * f / 5, which put fields 5, 10, ..., 45 one row too far and gave a black
+ * man on 45 the promotion weight of 3000.
+ * The evaluation of EvalWeights computes the other features as well, which
+ * have weight 0 by default, as it does at the leaves of the search.
+ *
+ * <p>
+ * Usage: EvalBenchmark [number of positions] [rounds]
+ * </p>
+ */
+public class EvalBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        List<DraughtsState> positions = Positions.random(105, count, 10, 80);
+        EvalWeights weights = EvalWeights.defaults();
+        int[][] boards = new int[count][];
+        EvalState[] terms = new EvalState[count];
+        for (int i = 0; i < count; i++) {
+            boards[i] = positions.get(i).getPieces();
+            terms[i] = new EvalState(positions.get(i));
+        }
+
+        int differences = 0;
+        for (int i = 0; i < count; i++) {
+            if (scan(boards[i]) != weights.evaluate(terms[i])) {
+                differences++;
+            }
+        }
+        System.out.format("%d positions, %d with different scores%n", count, differences);
+
+        // the first rounds warm up the JIT compiler
+        for (int run = 0; run < 2; run++) {
+            long sum = 0;
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (int[] board : boards) {
+                    sum += scan(board);
+                }
+            }
+            long scanTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (EvalState t : terms) {
+                    sum -= weights.evaluate(t);
+                }
+            }
+            long bitboardTime = System.nanoTime() - start;
+            if (run == 1) {
+                long evaluations = (long) rounds * count;
+                System.out.format("%10s %14s%n", "", "evaluations/s");
+                System.out.format("%10s %14d%n", "scan", evaluations * 1000000000L / scanTime);
+                System.out.format("%10s %14d%n", "EvalState", evaluations * 1000000000L / bitboardTime);
+                System.out.format("speedup %.2f (checksum %d)%n", (double) scanTime / bitboardTime, sum);
+            }
+        }
+    }
+
+    /** material and tempo as MyDraughtsPlayerV2 computed them, with board scans. **/
+    static int scan(int[] pieces) {
+        return piecesCount(pieces) * 10 + tempiCount(pieces);
+    }
+
+    /**
+     * Calculates a score for all pieces on the board Kings are worth triple
+     * compared to normal pieces
+     *
+     * @return white score - black score
+     */
+    static int piecesCount(int[] pieces) {
+        int whiteScore = 0;
+        int blackScore = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            int piece = pieces[i];
+            switch (piece) {
+                case DraughtsState.WHITEKING:
+                    whiteScore += 3;
+                    break;
+                case DraughtsState.WHITEPIECE:
+                    whiteScore += 1;
+                    break;
+                case DraughtsState.BLACKKING:
+                    blackScore += 3;
+                    break;
+                case DraughtsState.BLACKPIECE:
+                    blackScore += 1;
+                    break;
+            }
+        }
+        return whiteScore - blackScore;
+    }
+
+    /**
+     * Calculates tempi of a state, this works as follows: 1. Count number of
+     * pieces per row 2. Multiply it by row number as current player
+     *
+     * @return white tempi value - black tempi value
+     */
+    static int tempiCount(int[] pieces) {
+        int blackValue = 0;
+        int whiteValue = 0;
+        for (int i = 1; i < pieces.length; i++) {
+            int row = (i - 1) / 5;
+            switch (row) {
+                case (0):
+                    // If black piece
+                    if (pieces[i] == 2) {
+                        blackValue += 1;
+                    } else if (pieces[i] == 1) { // If new white king
+                        whiteValue += 3000;
+                    }
+                    break;
+                case (1):
+                    if (pieces[i] == 2) {
+                        blackValue += 2;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 9;
+                    }
+                    break;
+                case (2):
+                    if (pieces[i] == 2) {
+                        blackValue += 3;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 8;
+                    }
+                    break;
+                case (3):
+                    if (pieces[i] == 2) {
+                        blackValue += 4;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 7;
+                    }
+                    break;
+                case (4):
+                    if (pieces[i] == 2) {
+                        blackValue += 5;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 6;
+                    }
+                    break;
+                case (5):
+                    if (pieces[i] == 2) {
+                        blackValue += 6;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 5;
+                    }
+                    break;
+                case (6):
+                    if (pieces[i] == 2) {
+                        blackValue += 7;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 4;
+                    }
+                    break;
+                case (7):
+                    if (pieces[i] == 2) {
+                        blackValue += 8;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 3;
+                    }
+                    break;
+                case (8):
+                    if (pieces[i] == 2) {
+                        blackValue += 9;
+                    } else if (pieces[i] == 1) {
+                        whiteValue += 2;
+                    }
+                    break;
+                case (9):
+                    if (pieces[i] == 2) { // If new black king
+                        blackValue += 3000;
+                    } else if (pieces[i] == 1) { // If white piece
+                        whiteValue += 1;
+                    }
+                    break;
+            }
+        }
+        return whiteValue - blackValue;
+    }
+}
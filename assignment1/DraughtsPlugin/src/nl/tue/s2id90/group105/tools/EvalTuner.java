@@ -0,0 +1,139 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import nl.tue.s2id90.group105.EvalWeights;
+
+/**
+ * Texel-style tuning of the EvalWeights. The positions of the games in the
+ * roundrobin.zip that OfflineTournament writes, or the zip of SelfPlay, are
+ * labelled with the result of their game; the tuner looks for the weights
+ * whose evaluation predicts those results best. The prediction for a
+ * position with evaluation e is sigmoid(k * e), the expected score of white;
+ * the error is the mean squared difference between predictions and results.
+ *
+ * <p>
+ * Only the quiet positions that GameRecords passes on are used. Their
+ * features are kept in one byte array, COUNT bytes per position. First k is
+ * fitted for the start weights, then the weights are improved by coordinate
+ * descent: a weight is moved by a step as long as that lowers the error, and
+ * the step is halved when no weight can be moved any more. The error is
+ * summed over the positions with a parallel stream.
+ * </p>
+ *
+ * <p>
+ * Usage: EvalTuner [zip file] [skipped plies] [properties file]
+ * </p>
+ * Copy the properties file next to MyDraughtsPlayerV2 to use it.
+ */
+public class EvalTuner {
+    private static final int COUNT = EvalWeights.COUNT;
+
+    /** COUNT features per position. **/
+    private byte[] features = new byte[1024 * COUNT];
+    /** the score of white in the game of each position: 0, 0.5 or 1. **/
+    private float[] results = new float[1024];
+    private int size = 0;
+
+    public static void main(String[] args) throws IOException {
+        String zip = args.length > 0 ? args[0] : "roundrobin.zip";
+        int skip = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String file = args.length > 2 ? args[2] : "eval.properties";
+
+        EvalTuner tuner = new EvalTuner();
+        int[] f = new int[COUNT];
+        int games = GameRecords.read(zip, skip, (game, s, terms, result) -> {
+            EvalWeights.features(terms.getWhite(), terms.getBlack(), terms.getKings(), f);
+            tuner.add(f, result);
+        });
+        System.out.format("%d games, %d quiet positions%n", games, tuner.size);
+
+        int[] w = EvalWeights.defaults().toArray();
+        double k = tuner.fitScale(w);
+        double before = tuner.error(w, k);
+        System.out.format("k = %.5f, error %.6f%n", k, before);
+        double after = tuner.descend(w, k);
+        EvalWeights tuned = new EvalWeights(w);
+        System.out.format("error %.6f%n%s%n", after, tuned);
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            tuned.toProperties().store(out, String.format(
+                    "EvalTuner: %d games, %d positions, k=%.5f, error %.6f -> %.6f",
+                    games, tuner.size, k, before, after));
+        }
+    }
+
+    private void add(int[] f, float result) {
+        if (size == results.length) {
+            features = Arrays.copyOf(features, 2 * features.length);
+            results = Arrays.copyOf(results, 2 * results.length);
+        }
+        for (int i = 0; i < COUNT; i++) {
+            features[size * COUNT + i] = (byte) f[i];
+        }
+        results[size++] = result;
+    }
+
+    /** @return mean squared error of the predictions with weights w and scale k. **/
+    double error(int[] w, double k) {
+        byte[] features = this.features;
+        float[] results = this.results;
+        double sum = IntStream.range(0, size).parallel().mapToDouble(p -> {
+            int e = 0;
+            for (int i = 0, j = p * COUNT; i < COUNT; i++, j++) {
+                e += w[i] * features[j];
+            }
+            double d = results[p] - 1 / (1 + Math.exp(-k * e));
+            return d * d;
+        }).sum();
+        return sum / size;
+    }
+
+    /** @return the scale k that minimises the error for weights w. **/
+    double fitScale(int[] w) {
+        // the error is unimodal in k: golden section search
+        double lo = 0, hi = 0.1;
+        double g = (Math.sqrt(5) - 1) / 2;
+        for (int i = 0; i < 60; i++) {
+            double a = hi - g * (hi - lo), b = lo + g * (hi - lo);
+            if (error(w, a) < error(w, b)) {
+                hi = b;
+            } else {
+                lo = a;
+            }
+        }
+        return (lo + hi) / 2;
+    }
+
+    /**
+     * Coordinate descent from w; w receives the best weights.
+     *
+     * @return the error of the best weights
+     */
+    double descend(int[] w, double k) {
+        double best = error(w, k);
+        for (int step = 8; step >= 1; step /= 2) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int i = 0; i < COUNT; i++) {
+                    for (int sign = -1; sign <= 1; sign += 2) {
+                        w[i] += sign * step;
+                        double e = error(w, k);
+                        if (e < best) {
+                            best = e;
+                            improved = true;
+                            break;
+                        }
+                        w[i] -= sign * step;
+                    }
+                }
+            }
+            System.out.format("step %d: error %.6f%n", step, best);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,109 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.EvalState;
+import org10x10.dam.game.Move;
+
+/**
+ * Reads the games in a zip of pdns, the roundrobin.zip that OfflineTournament
+ * writes or the zip of SelfPlay, and replays them for the tuning tools. Each
+ * quiet position is passed on with the result of its game: the player to
+ * move does not have to capture, so the static evaluation is meaningful, and
+ * the first plies of a game are skipped.
+ */
+final class GameRecords {
+    /** a move in the movetext of a pdn, "32-28" or "28x19"; "null" ends a game. **/
+    private static final Pattern MOVE = Pattern.compile("(\\d+[-x]\\d+|null)");
+    private static final Pattern RESULT = Pattern.compile("\\[Result \"(\\d+)-(\\d+)\"\\]");
+
+    /** receives the quiet positions of the games. **/
+    interface PositionConsumer {
+        /**
+         * @param game number of the game, from 0
+         * @param s the position
+         * @param terms the evaluation terms of s
+         * @param result the score of white in the game: 0, 0.5 or 1
+         */
+        void accept(int game, DraughtsState s, EvalState terms, float result);
+    }
+
+    private GameRecords() { }
+
+    /**
+     * Passes the quiet positions after the first skip plies of the games in
+     * zip to consumer.
+     *
+     * @return the number of games
+     */
+    static int read(String zip, int skip, PositionConsumer consumer) throws IOException {
+        int games = 0;
+        try (ZipInputStream in = new ZipInputStream(new FileInputStream(zip))) {
+            for (ZipEntry e = in.getNextEntry(); e != null; e = in.getNextEntry()) {
+                if (e.getName().endsWith(".pdn")) {
+                    replay(games++, read(in), skip, consumer);
+                }
+            }
+        }
+        return games;
+    }
+
+    /** @return the contents of the current zip entry. **/
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+            b.write(buffer, 0, n);
+        }
+        return new String(b.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replays the game in pdn. Moves are matched on their notation; a game
+     * with a move that does not match is used up to that move.
+     */
+    private static void replay(int game, String pdn, int skip, PositionConsumer consumer) {
+        Matcher m = RESULT.matcher(pdn);
+        if (!m.find()) {
+            return;
+        }
+        int r0 = Integer.parseInt(m.group(1)), r1 = Integer.parseInt(m.group(2));
+        float result = r0 + r1 == 0 ? 0.5f : (float) r0 / (r0 + r1);
+
+        String movetext = pdn.substring(pdn.lastIndexOf(']') + 1);
+        DraughtsState s = new DraughtsState();
+        EvalState terms = new EvalState(s);
+        int ply = 0;
+        for (Matcher mm = MOVE.matcher(movetext); mm.find(); ply++) {
+            Move move = find(s.getMoves(), mm.group(1));
+            if (move == null) {
+                return;
+            }
+            s.doMove(move);
+            terms.doMove(move);
+            if (ply + 1 >= skip && !s.isEndState() && !s.getMoves().get(0).isCapture()) {
+                consumer.accept(game, s, terms, result);
+            }
+        }
+    }
+
+    /** @return the move with the given notation, or null. **/
+    private static Move find(List<Move> moves, String notation) {
+        for (Move m : moves) {
+            // getNotation pads fields below 10 with a space
+            if (m.getNotation().trim().equals(notation)) {
+                return m;
+            }
+        }
+        return null;
+    }
+}
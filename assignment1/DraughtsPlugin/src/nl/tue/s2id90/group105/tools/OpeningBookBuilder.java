@@ -0,0 +1,168 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+import nl.tue.s2id90.group105.OpeningBook;
+import nl.tue.s2id90.group105.PrincipalVariation;
+import nl.tue.s2id90.group105.ProbCut;
+import nl.tue.s2id90.group105.Search;
+import nl.tue.s2id90.group105.TranspositionTable;
+import nl.tue.s2id90.group105.Zobrist;
+import org10x10.dam.game.Move;
+
+/**
+ * Builds the opening book of MyDraughtsPlayerV2. Starting from the initial
+ * position it analyses the opening tree ply by ply: a multi-PV search of a
+ * fixed depth finds the width best moves of a position with their exact
+ * values, the moves that are at most margin worse than the best one go into
+ * the book with a weight that
+ * decreases with their distance to the best score, and the positions after
+ * them make up the next ply. Positions that are reached along several lines
+ * are analysed once. The positions of a ply are analysed in parallel, each
+ * thread with its own Search.
+ *
+ * <p>
+ * Usage: OpeningBookBuilder [plies] [depth] [width] [margin] [threads] [file]
+ * </p>
+ * Copy the file next to MyDraughtsPlayerV2 to use it.
+ */
+public class OpeningBookBuilder {
+
+    /** the book moves of one position. **/
+    private static class Analysis {
+        final DraughtsState state;
+        final List<Move> moves = new ArrayList<>();
+        final List<Integer> weights = new ArrayList<>();
+
+        Analysis(DraughtsState state) {
+            this.state = state;
+        }
+    }
+
+    private final int depth, width, margin;
+    private final MyDraughtsPlayerV2 evaluator;
+    private final ProbCut probCut = ProbCut.load("probcut.properties");
+    private final ThreadLocal<Search> searches;
+
+    OpeningBookBuilder(int depth, int width, int margin) {
+        this.depth = depth;
+        this.width = width;
+        this.margin = margin;
+        this.evaluator = new MyDraughtsPlayerV2(depth);
+        this.searches = ThreadLocal.withInitial(() -> {
+            Search search = new Search(evaluator);
+            search.setProbCut(probCut);
+            return search;
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException,
+            ExecutionException {
+        int plies = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int margin = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int threads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        String file = args.length > 5 ? args[5] : "openings.book";
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(depth, width, margin);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Analysis> book = new ArrayList<>();
+        List<DraughtsState> level = Arrays.asList(new DraughtsState());
+        try {
+            for (int ply = 0; ply < plies && !level.isEmpty(); ply++) {
+                long start = System.currentTimeMillis();
+                final List<DraughtsState> positions = level;
+                List<Analysis> analyses = pool.submit(() -> positions.parallelStream()
+                        .map(builder::analyse)
+                        .collect(Collectors.toList())).get();
+                book.addAll(analyses);
+
+                // the positions after the book moves, each position once
+                Map<Long, DraughtsState> next = new LinkedHashMap<>();
+                for (Analysis a : analyses) {
+                    for (Move m : a.moves) {
+                        DraughtsState s = a.state.clone();
+                        s.doMove(m);
+                        if (!s.isEndState()) {
+                            next.putIfAbsent(Zobrist.hash(s), s);
+                        }
+                    }
+                }
+                level = new ArrayList<>(next.values());
+                System.out.format("ply %d: %d positions analysed in %d ms%n",
+                        ply, analyses.size(), System.currentTimeMillis() - start);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        OpeningBook openings = toBook(book);
+        try (OutputStream out = new FileOutputStream(file)) {
+            openings.write(out);
+        }
+        System.out.format("%d entries written to %s%n", openings.size(), file);
+    }
+
+    /**
+     * @return the book moves of state s, with their weights; none if the
+     * analysis found no lines.
+     */
+    Analysis analyse(DraughtsState s) {
+        List<PrincipalVariation> lines = searches.get().analyse(s, depth, width);
+        Analysis analysis = new Analysis(s);
+        if (lines.isEmpty()) {
+            return analysis;
+        }
+        int best = value(s, lines.get(0));
+        for (PrincipalVariation line : lines) {
+            int loss = best - value(s, line);
+            if (loss > margin) {
+                break;
+            }
+            analysis.moves.add(line.getMove());
+            analysis.weights.add(margin + 1 - loss);
+        }
+        return analysis;
+    }
+
+    /** @return value of line for the player to move in s. **/
+    private static int value(DraughtsState s, PrincipalVariation line) {
+        return s.isWhiteToMove() ? line.getValue() : -line.getValue();
+    }
+
+    /** @return the analyses as an opening book, sorted on key. **/
+    private static OpeningBook toBook(List<Analysis> analyses) {
+        List<long[]> entries = new ArrayList<>();
+        for (Analysis a : analyses) {
+            long key = Zobrist.hash(a.state);
+            for (int i = 0; i < a.moves.size(); i++) {
+                entries.add(new long[]{key,
+                    TranspositionTable.encode(a.moves.get(i)), a.weights.get(i)});
+            }
+        }
+        entries.sort(Comparator.comparingLong(e -> e[0]));
+        long[] keys = new long[entries.size()];
+        short[] moves = new short[entries.size()];
+        short[] weights = new short[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i)[0];
+            moves[i] = (short) entries.get(i)[1];
+            weights[i] = (short) entries.get(i)[2];
+        }
+        return new OpeningBook(keys, moves, weights);
+    }
+}
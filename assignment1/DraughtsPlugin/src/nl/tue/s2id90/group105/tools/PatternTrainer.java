@@ -0,0 +1,218 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+import nl.tue.s2id90.group105.PatternNetwork;
+
+/**
+ * Trains the weights of PatternNetwork.squares on the games of a zip of
+ * pdns, as EvalTuner does for the EvalWeights. The network is trained on
+ * what the evaluation of MyDraughtsPlayerV2 without patterns leaves
+ * unexplained: the prediction for a position with evaluation e and pattern
+ * score p is sigmoid(k * (e + p)), with k fitted for the evaluation alone,
+ * and the error is the mean squared difference between predictions and
+ * results.
+ *
+ * <p>
+ * The games are split in a training set and a test set of every tenth
+ * game. Every training position is also added with the board turned around
+ * and the colours swapped, so that the weights learn the same patterns for
+ * both colours and there are twice as many positions to learn from. The
+ * weights are fitted by stochastic gradient descent over the training
+ * positions, with an L2 penalty that keeps the weights of rare occupations
+ * near 0. The error on the test set is reported after every epoch, and the
+ * weights of the epoch with the lowest test error are kept.
+ * </p>
+ *
+ * <p>
+ * Usage: PatternTrainer [zip file] [skipped plies] [base] [epochs] [file]
+ * </p>
+ * Copy the file next to MyDraughtsPlayerV2 and switch on its USE_PATTERNS
+ * to use it.
+ */
+public class PatternTrainer {
+    /** step size of the gradient descent, in evaluation units. **/
+    private static final double RATE = 50;
+    /** weight of the L2 penalty, per update. **/
+    private static final double DECAY = 3e-4;
+
+    private final int tuples;
+    /** the tuple indices of each position, tuples per position. **/
+    private int[] index;
+    /** the evaluation without patterns of each position. **/
+    private int[] eval = new int[1024];
+    /** the score of white in the game of each position: 0, 0.5 or 1. **/
+    private float[] results = new float[1024];
+    /** whether each position belongs to the test set. **/
+    private boolean[] test = new boolean[1024];
+    private int size = 0;
+
+    private PatternTrainer(int tuples) {
+        this.tuples = tuples;
+        this.index = new int[1024 * tuples];
+    }
+
+    public static void main(String[] args) throws IOException {
+        String zip = args.length > 0 ? args[0] : "roundrobin.zip";
+        int skip = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int base = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int epochs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        String file = args.length > 4 ? args[4] : "patterns.net";
+
+        PatternNetwork network = PatternNetwork.squares(base);
+        MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(1);
+        PatternTrainer trainer = new PatternTrainer(network.size());
+        int[] index = new int[network.size()];
+        int[] flipped = new int[51];
+        // the terms of GameRecords have no pattern indices: evaluate leaves the patterns out
+        int games = GameRecords.read(zip, skip, (game, s, terms, result) -> {
+            int eval = evaluator.evaluate(s, terms);
+            boolean test = game % 10 == 9;
+            network.indices(s.getPieces(), index);
+            trainer.add(index, eval, result, test);
+            if (!test) {
+                flip(s.getPieces(), flipped);
+                network.indices(flipped, index);
+                trainer.add(index, -eval, 1 - result, false);
+            }
+        });
+        System.out.format("%d games, %d quiet positions%n", games, trainer.size);
+
+        short[][] weights = network.getWeights();
+        float[][] w = new float[weights.length][];
+        for (int t = 0; t < w.length; t++) {
+            w[t] = new float[weights[t].length];
+        }
+        double k = trainer.fitScale();
+        double[] before = trainer.error(w, k);
+        System.out.format("k = %.5f, training error %.6f, test error %.6f%n",
+                k, before[0], before[1]);
+        double best = before[1];
+        Random random = new Random(105);
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            // the step size is halved, divided by 3, ... every 5 epochs
+            trainer.epoch(w, k, RATE / (1 + epoch / 5), random);
+            double[] e = trainer.error(w, k);
+            System.out.format("epoch %2d: training error %.6f, test error %.6f%n",
+                    epoch, e[0], e[1]);
+            if (e[1] < best) {
+                best = e[1];
+                for (int t = 0; t < w.length; t++) {
+                    for (int i = 0; i < w[t].length; i++) {
+                        weights[t][i] = (short) Math.round(w[t][i]);
+                    }
+                }
+            }
+        }
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            network.write(out);
+        }
+        System.out.format("test error %.6f -> %.6f, written to %s%n", before[1], best, file);
+    }
+
+    /**
+     * Turns the board around and swaps the colours of the pieces: the value
+     * of the flipped board for white is the value of the board for black.
+     *
+     * @param flipped receives the flipped board
+     */
+    private static void flip(int[] pieces, int[] flipped) {
+        for (int f = 1; f <= 50; f++) {
+            int p = pieces[f];
+            flipped[51 - f] = p == DraughtsState.EMPTY ? p
+                    : p == DraughtsState.WHITEPIECE || p == DraughtsState.WHITEKING ? p + 1 : p - 1;
+        }
+    }
+
+    private void add(int[] index, int eval, float result, boolean test) {
+        if (size == results.length) {
+            this.index = Arrays.copyOf(this.index, 2 * this.index.length);
+            this.eval = Arrays.copyOf(this.eval, 2 * size);
+            this.results = Arrays.copyOf(this.results, 2 * size);
+            this.test = Arrays.copyOf(this.test, 2 * size);
+        }
+        System.arraycopy(index, 0, this.index, size * tuples, tuples);
+        this.eval[size] = eval;
+        this.results[size] = result;
+        this.test[size++] = test;
+    }
+
+    /** @return the pattern score of position p with weights w. **/
+    private float score(float[][] w, int p) {
+        float score = 0;
+        for (int t = 0, j = p * tuples; t < tuples; t++, j++) {
+            score += w[t][index[j]];
+        }
+        return score;
+    }
+
+    /**
+     * @return the prediction for position p with weights w, or without
+     * patterns if w is null, and scale k.
+     */
+    private double predict(float[][] w, double k, int p) {
+        return 1 / (1 + Math.exp(-k * (eval[p] + (w == null ? 0 : score(w, p)))));
+    }
+
+    /** @return the mean squared error on the training set and on the test set. **/
+    double[] error(float[][] w, double k) {
+        double[] sum = new double[2];
+        int[] n = new int[2];
+        for (int p = 0; p < size; p++) {
+            double d = results[p] - predict(w, k, p);
+            int set = test[p] ? 1 : 0;
+            sum[set] += d * d;
+            n[set]++;
+        }
+        return new double[] {sum[0] / n[0], sum[1] / n[1]};
+    }
+
+    /** @return the scale k that minimises the training error without patterns. **/
+    double fitScale() {
+        // the error is unimodal in k: golden section search
+        double lo = 0, hi = 0.1;
+        double g = (Math.sqrt(5) - 1) / 2;
+        for (int i = 0; i < 60; i++) {
+            double a = hi - g * (hi - lo), b = lo + g * (hi - lo);
+            if (error(null, a)[0] < error(null, b)[0]) {
+                hi = b;
+            } else {
+                lo = a;
+            }
+        }
+        return (lo + hi) / 2;
+    }
+
+    /** one pass of stochastic gradient descent over the training positions, in random order. **/
+    void epoch(float[][] w, double k, double rate, Random random) {
+        int[] order = new int[size];
+        for (int p = 0; p < size; p++) {
+            order[p] = p;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int o = order[i];
+            order[i] = order[j];
+            order[j] = o;
+        }
+        for (int p : order) {
+            if (test[p]) {
+                continue;
+            }
+            double y = predict(w, k, p);
+            // derivative of (results - y)^2 to the pattern score
+            float step = (float) (rate * 2 * (results[p] - y) * y * (1 - y) * k);
+            for (int t = 0, j = p * tuples; t < tuples; t++, j++) {
+                float[] table = w[t];
+                int i = index[j];
+                table[i] += step - (float) (DECAY * rate) * table[i];
+            }
+        }
+    }
+}
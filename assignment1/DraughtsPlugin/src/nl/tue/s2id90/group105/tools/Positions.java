@@ -0,0 +1,41 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+
+/**
+ * Fixed sets of test positions for the benchmark and calibration tools.
+ * Positions are reached by playing random moves from the initial state, so a
+ * set is determined by its seed.
+ */
+public final class Positions {
+
+    private Positions() { }
+
+    /**
+     * @param seed seed of the random moves
+     * @param count number of positions
+     * @param minPly minimum number of random moves from the initial state
+     * @param maxPly maximum number of random moves from the initial state
+     * @return count positions in which the player to move has a choice.
+     */
+    public static List<DraughtsState> random(long seed, int count, int minPly, int maxPly) {
+        Random random = new Random(seed);
+        List<DraughtsState> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            DraughtsState s = new DraughtsState();
+            int plies = minPly + random.nextInt(maxPly - minPly + 1);
+            for (int i = 0; i < plies && !s.isEndState(); i++) {
+                List<Move> moves = s.getMoves();
+                s.doMove(moves.get(random.nextInt(moves.size())));
+            }
+            if (s.getMoves().size() > 1) {
+                positions.add(s);
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,90 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.EndgameTable;
+import nl.tue.s2id90.group105.Extensions;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+import nl.tue.s2id90.group105.ProbCut;
+import nl.tue.s2id90.group105.Search;
+import org10x10.dam.game.Move;
+
+/**
+ * Fits the ProbCut model v = a*v' + b + e on a set of positions: for every
+ * quiet position it computes the value v' of a shallow search and the value v
+ * of a deep search, fits a and b by least squares and takes sigma as the
+ * standard deviation of the residuals e. Both searches are set up as the
+ * search of MyDraughtsPlayerV2, with extensions and the endgame table, but
+ * without ProbCut. The result is written as a properties file that
+ * ProbCut#load can read; copy it next to MyDraughtsPlayerV2 to use it.
+ *
+ * <p>
+ * Usage: ProbCutCalibration [positions] [deep depth] [reduction] [threshold] [file]
+ * </p>
+ */
+public class ProbCutCalibration {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int deep = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        int reduction = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        double threshold = args.length > 3 ? Double.parseDouble(args[3]) : 1.5;
+        String file = args.length > 4 ? args[4] : "probcut.properties";
+
+        Search search = new Search(new MyDraughtsPlayerV2(deep));
+        search.setEndgameTable(EndgameTable.load("endgame.tb"));
+        search.setExtensions(Extensions.defaults());
+        List<DraughtsState> positions = Positions.random(2019, count, 6, 70);
+
+        // least squares sums over the (shallow, deep) pairs
+        int n = 0;
+        double sx = 0, sy = 0, sxx = 0, sxy = 0, syy = 0;
+        for (DraughtsState s : positions) {
+            List<Move> moves = s.getMoves();
+            if (moves.size() < 2) {
+                continue;   // a forced move is played without a search
+            }
+            if (moves.get(0).isCapture()) {
+                continue;   // ProbCut is not tried in capture positions
+            }
+            double x = value(search, s, deep - reduction);
+            double y = value(search, s, deep);
+            if (isDecided(x) || isDecided(y)) {
+                continue;   // decided games say nothing about the model
+            }
+            n++;
+            sx += x; sy += y; sxx += x * x; sxy += x * y; syy += y * y;
+        }
+        double a = (n * sxy - sx * sy) / (n * sxx - sx * sx);
+        double b = (sy - a * sx) / n;
+        double sse = syy - 2 * a * sxy - 2 * b * sy + a * a * sxx + 2 * a * b * sx + n * b * b;
+        double sigma = Math.sqrt(sse / (n - 2));
+        double r = (n * sxy - sx * sy)
+                / Math.sqrt((n * sxx - sx * sx) * (n * syy - sy * sy));
+
+        ProbCut probCut = new ProbCut(deep, reduction, a, b, sigma, threshold);
+        System.out.format("%d pairs, correlation %.3f%n%s%n", n, r, probCut);
+        try (OutputStream out = new FileOutputStream(file)) {
+            probCut.toProperties().store(out,
+                    String.format("ProbCutCalibration: %d positions, depth %d vs %d, r=%.3f",
+                            n, deep, deep - reduction, r));
+        }
+    }
+
+    /**
+     * @return whether v is a win or loss, found by the search or in the
+     * endgame table; table wins score about Search.TABLE_WIN.
+     */
+    private static boolean isDecided(double v) {
+        return Math.abs(v) > Search.TABLE_WIN / 2;
+    }
+
+    /** @return value of s for the player to move, in a search of depth d. **/
+    private static int value(Search search, DraughtsState s, int d) {
+        search.search(s.clone(), d);
+        return s.isWhiteToMove() ? search.getValue() : -search.getValue();
+    }
+}
@@ -0,0 +1,59 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.util.List;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+import nl.tue.s2id90.group105.ProbCut;
+import nl.tue.s2id90.group105.Search;
+
+/**
+ * Compares the root strategies of Search: searches a fixed set of positions
+ * to a fixed depth with every strategy and reports the nodes and time it
+ * takes to find the value, and for how many positions the strategies agree
+ * on the value.
+ *
+ * <p>
+ * Usage: RootStrategyBenchmark [depth] [number of positions]
+ * </p>
+ */
+public class RootStrategyBenchmark {
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        List<DraughtsState> positions = Positions.random(105, count, 10, 60);
+        MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(depth);
+        ProbCut probCut = ProbCut.load("probcut.properties");
+
+        // warm up the JIT compiler, so it does not favour later runs
+        for (DraughtsState s : positions) {
+            new Search(evaluator).search(s.clone(), depth - 2);
+        }
+
+        Search.RootStrategy[] strategies = Search.RootStrategy.values();
+        int[][] values = new int[strategies.length][positions.size()];
+        System.out.format("%-8s %12s %10s %14s%n", "strategy", "nodes", "time (ms)", "root searches");
+        for (int k = 0; k < strategies.length; k++) {
+            long nodes = 0, time = 0, rootSearches = 0;
+            for (int i = 0; i < positions.size(); i++) {
+                // a fresh search per position: no help from an earlier table
+                Search search = new Search(evaluator);
+                search.setProbCut(probCut);
+                search.setRootStrategy(strategies[k]);
+                long start = System.nanoTime();
+                search.search(positions.get(i).clone(), depth);
+                time += System.nanoTime() - start;
+                nodes += search.getNodes();
+                rootSearches += search.getRootSearches();
+                values[k][i] = search.getValue();
+            }
+            System.out.format("%-8s %12d %10d %14d%n",
+                    strategies[k], nodes, time / 1000000, rootSearches);
+        }
+        int same = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            same += values[0][i] == values[strategies.length - 1][i] ? 1 : 0;
+        }
+        System.out.format("same value in %d of %d positions%n", same, positions.size());
+    }
+}
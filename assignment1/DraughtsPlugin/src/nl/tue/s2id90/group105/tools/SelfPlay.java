@@ -0,0 +1,120 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.EndgameTable;
+import nl.tue.s2id90.group105.Extensions;
+import nl.tue.s2id90.group105.GameHistory;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+import nl.tue.s2id90.group105.Search;
+import nl.tue.s2id90.group105.Zobrist;
+import org10x10.dam.game.Move;
+
+/**
+ * Plays games of the search of MyDraughtsPlayerV2 against itself, for the
+ * tuning tools. Every game starts with a number of random plies, so that the
+ * games differ; after that both sides play the best move of a search of a
+ * fixed depth. A game is a draw if it reaches the maximum number of plies or
+ * a position for the third time. The games are written to a zip file in the
+ * format of the roundrobin.zip of OfflineTournament, which is what
+ * EvalTuner and PatternTrainer read.
+ *
+ * <p>
+ * Usage: SelfPlay [games] [depth] [random plies] [max plies] [seed] [zip file]
+ * </p>
+ */
+public class SelfPlay {
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int randomPlies = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        int maxPlies = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 105;
+        String file = args.length > 5 ? args[5] : "selfplay.zip";
+
+        Search search = new Search(new MyDraughtsPlayerV2(depth));
+        search.setEndgameTable(EndgameTable.load("endgame.tb"));
+        search.setExtensions(Extensions.defaults());
+        Random random = new Random(seed);
+        int[] score = new int[3];   // white wins, draws, black wins
+        long start = System.currentTimeMillis();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int g = 1; g <= games; g++) {
+                List<Move> moves = new ArrayList<>();
+                int r0 = play(search, depth, randomPlies, maxPlies, random, moves);
+                score[2 - r0]++;
+                out.putNextEntry(new ZipEntry(String.format("pdns/%04d.pdn", g)));
+                out.write(toPdn(g, moves, r0).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+                if (g % 100 == 0) {
+                    System.out.format("%d games in %d s: +%d =%d -%d%n", g,
+                            (System.currentTimeMillis() - start) / 1000,
+                            score[0], score[1], score[2]);
+                }
+            }
+        }
+        System.out.format("%d games written to %s%n", games, file);
+    }
+
+    /**
+     * Plays a game; moves receives its moves.
+     *
+     * @return the points of white: 2 for a win, 1 for a draw, 0 for a loss.
+     */
+    static int play(Search search, int depth, int randomPlies, int maxPlies,
+            Random random, List<Move> moves) {
+        DraughtsState s = new DraughtsState();
+        // keys of the positions since the last irreversible move, before s
+        List<Long> keys = new ArrayList<>();
+        while (!s.isEndState()) {
+            long key = Zobrist.hash(s);
+            if (moves.size() >= maxPlies || keys.stream().filter(k -> k == key).count() >= 2) {
+                return 1;
+            }
+            Move move;
+            if (moves.size() < randomPlies) {
+                List<Move> legal = s.getMoves();
+                move = legal.get(random.nextInt(legal.size()));
+            } else {
+                search.setGameHistory(keys.stream().mapToLong(Long::longValue).toArray());
+                move = search.search(s.clone(), depth);
+            }
+            if (GameHistory.isReversible(move)) {
+                keys.add(key);
+            } else {
+                keys.clear();
+            }
+            moves.add(move);
+            s.doMove(move);
+        }
+        // the player to move has lost
+        return s.isWhiteToMove() ? 0 : 2;
+    }
+
+    /** @return the game as a pdn, as OfflineTournament writes it. **/
+    private static String toPdn(int game, List<Move> moves, int r0) {
+        StringBuilder b = new StringBuilder();
+        b.append(String.format("[Event \"SelfPlay %d\"]\n", game));
+        b.append(String.format("[Result \"%d-%d\"]\n", r0, 2 - r0));
+        b.append("[GameType \"20\"]\n");
+        for (int i = 0; i < moves.size(); i++) {
+            if (i % 2 == 0) {
+                b.append(String.format("%2d.%s ", 1 + i / 2, moves.get(i).getNotation()));
+            } else {
+                b.append(String.format("%s ", moves.get(i).getNotation()));
+            }
+            if (i % 10 == 9) {
+                b.append("\n");
+            }
+        }
+        return b.append(" *").toString();
+    }
+}
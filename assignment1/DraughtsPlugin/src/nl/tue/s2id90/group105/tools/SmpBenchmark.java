@@ -0,0 +1,55 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.util.List;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.LazySmpSearch;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+
+/**
+ * Measures the lazy SMP search: for 1, 2, 4, 8 and 16 threads it searches a
+ * fixed set of positions to a fixed depth and reports the time to reach that
+ * depth, the nodes per second and the speedup relative to one thread.
+ *
+ * <p>
+ * Usage: SmpBenchmark [depth] [number of positions]
+ * </p>
+ */
+public class SmpBenchmark {
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        List<DraughtsState> positions = Positions.random(105, count, 10, 40);
+        MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(depth);
+
+        // warm up the JIT compiler, so it does not favour later runs
+        for (DraughtsState s : positions) {
+            new LazySmpSearch(evaluator, 1).search(s.clone(), depth - 1);
+        }
+
+        System.out.format("%7s %12s %12s %12s %8s%n",
+                "threads", "time (ms)", "nodes", "nps", "speedup");
+        double baseTime = 0;
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            long time = 0, nodes = 0;
+            for (DraughtsState s : positions) {
+                // a fresh search per position: no help from an earlier table
+                LazySmpSearch search = new LazySmpSearch(evaluator, threads);
+                try {
+                    long start = System.nanoTime();
+                    search.search(s.clone(), depth);
+                    time += System.nanoTime() - start;
+                    nodes += search.getNodes();
+                } finally {
+                    search.shutdown();
+                }
+            }
+            if (threads == 1) {
+                baseTime = time;
+            }
+            System.out.format("%7d %12d %12d %12d %8.2f%n",
+                    threads, time / 1000000, nodes, nodes * 1000000000L / time,
+                    baseTime / time);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package nl.tue.s2id90.group105.tools;
+
+import java.util.List;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.group105.MyDraughtsPlayerV2;
+import nl.tue.s2id90.group105.Search;
+import nl.tue.s2id90.group105.YbwcSearch;
+
+/**
+ * Speedup report of the young brothers wait search: searches a fixed set of
+ * positions to a fixed depth with YbwcSearch on 1, 2, 4, 8 and 16 threads,
+ * and reports time, nodes and speedup relative to the same alpha-beta search
+ * without splitting (serial ab). It also checks that YbwcSearch finds the
+ * values of the serial search with any number of threads. The PVS of Search,
+ * with table cutoffs, aspiration windows and reductions, is shown for
+ * reference only: it searches a different, much smaller tree.
+ *
+ * <p>
+ * Usage: YbwcBenchmark [depth] [number of positions]
+ * </p>
+ */
+public class YbwcBenchmark {
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        List<DraughtsState> positions = Positions.random(105, count, 10, 40);
+        MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(depth);
+
+        // warm up the JIT compiler, so it does not favour later runs
+        for (DraughtsState s : positions) {
+            new Search(evaluator).search(s.clone(), depth - 1);
+            run(new YbwcSearch(evaluator, 2), s, depth - 1);
+        }
+
+        long pvsTime = 0, pvsNodes = 0;
+        for (DraughtsState s : positions) {
+            Search search = new Search(evaluator);
+            long start = System.nanoTime();
+            search.search(s.clone(), depth);
+            pvsTime += System.nanoTime() - start;
+            pvsNodes += search.getNodes();
+        }
+
+        // a fresh search per position: no help from an earlier table
+        int[] values = new int[positions.size()];
+        long baseTime = 0, baseNodes = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            YbwcSearch search = new YbwcSearch(evaluator, 1, Integer.MAX_VALUE);
+            baseTime += run(search, positions.get(i), depth);
+            baseNodes += search.getNodes();
+            values[i] = search.getValue();
+        }
+        System.out.format("%-14s %10s %12s %8s %8s%n",
+                "search", "time (ms)", "nodes", "speedup", "values");
+        System.out.format("%-14s %10d %12d %8s %8s%n",
+                "pvs", pvsTime / 1000000, pvsNodes, "-", "-");
+        System.out.format("%-14s %10d %12d %8.2f %8s%n",
+                "serial ab", baseTime / 1000000, baseNodes, 1.0, "-");
+
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            long time = 0, nodes = 0;
+            int same = 0;
+            for (int i = 0; i < positions.size(); i++) {
+                YbwcSearch search = new YbwcSearch(evaluator, threads);
+                time += run(search, positions.get(i), depth);
+                nodes += search.getNodes();
+                same += values[i] == search.getValue() ? 1 : 0;
+            }
+            System.out.format("%-14s %10d %12d %8.2f %4d/%-3d%n",
+                    "ybwc " + threads, time / 1000000, nodes,
+                    (double) baseTime / time, same, positions.size());
+        }
+    }
+
+    /** @return nanoseconds that search needs for s; shuts search down afterwards. **/
+    private static long run(YbwcSearch search, DraughtsState s, int depth) {
+        long start = System.nanoTime();
+        search.search(s.clone(), depth);
+        long time = System.nanoTime() - start;
+        search.shutdown();
+        return time;
+    }
+}
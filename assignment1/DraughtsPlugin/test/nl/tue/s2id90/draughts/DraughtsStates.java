@@ -0,0 +1,34 @@
+package nl.tue.s2id90.draughts;
+
+import org10x10.dam.game.BoardState;
+
+/**
+ * Builds draughts states with a given board for the tests; DraughtsState
+ * itself only starts from the initial position.
+ */
+public final class DraughtsStates {
+
+    private DraughtsStates() { }
+
+    /**
+     * @param pieces the piece on each field 1..50, as returned by
+     * DraughtsState.getPieces(); entry 0 is not used
+     * @param whiteToMove whether white is to move
+     * @return a killer rules state with that board.
+     */
+    public static DraughtsState of(int[] pieces, boolean whiteToMove) {
+        BoardState bs = new BoardState(10, 10);
+        bs.setPieces(pieces);
+        bs.setWhiteToMove(whiteToMove);
+        return new DraughtsState(bs, true);
+    }
+
+    /** @return a state with the given pieces on the given fields, and otherwise empty. **/
+    public static DraughtsState of(boolean whiteToMove, int... fieldsAndPieces) {
+        int[] pieces = new int[51];
+        for (int i = 0; i < fieldsAndPieces.length; i += 2) {
+            pieces[fieldsAndPieces[i]] = fieldsAndPieces[i + 1];
+        }
+        return of(pieces, whiteToMove);
+    }
+}
@@ -0,0 +1,93 @@
+package nl.tue.s2id90.group105;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.draughts.DraughtsStates;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * The multi-PV analysis of Search, and its edge cases: no lines are asked
+ * for, the game is over, or there is only one move.
+ */
+public class AnalyseTest {
+
+    private final MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(4);
+
+    @Test
+    public void noLinesForCountZero() {
+        Search search = new Search(evaluator);
+        assertTrue(search.analyse(new DraughtsState(), 4, 0).isEmpty());
+        assertTrue(search.analyse(new DraughtsState(), 4, -1).isEmpty());
+    }
+
+    @Test
+    public void noLinesForAnEndState() {
+        // white has no pieces left
+        DraughtsState s = DraughtsStates.of(true, 5, DraughtsState.BLACKKING);
+        assertTrue(s.isEndState());
+        assertTrue(new Search(evaluator).analyse(s, 4, 3).isEmpty());
+    }
+
+    @Test
+    public void aForcedMoveIsNotSearched() {
+        // white has to take 27
+        DraughtsState s = DraughtsStates.of(true,
+                32, DraughtsState.WHITEPIECE, 27, DraughtsState.BLACKPIECE,
+                5, DraughtsState.BLACKKING);
+        assertEquals(1, s.getMoves().size());
+        Search search = new Search(evaluator);
+        List<PrincipalVariation> lines = search.analyse(s, 4, 3);
+        assertEquals(1, lines.size());
+        assertEquals(s.getMoves().get(0), lines.get(0).getMove());
+        assertEquals(0, lines.get(0).getDepth());
+        assertEquals(0, search.getNodes());
+    }
+
+    @Test
+    public void atMostOneLinePerMove() {
+        DraughtsState s = new DraughtsState();
+        List<PrincipalVariation> lines = new Search(evaluator).analyse(s.clone(), 3, 20);
+        assertEquals(s.getMoves().size(), lines.size());
+        assertDistinctAndSorted(lines);
+    }
+
+    @Test
+    public void linesAreBestFirst() {
+        DraughtsState s = new DraughtsState();
+        Search search = new Search(evaluator);
+        List<PrincipalVariation> lines = search.analyse(s.clone(), 5, 4);
+        assertEquals(4, lines.size());
+        assertDistinctAndSorted(lines);
+        for (PrincipalVariation line : lines) {
+            assertEquals(5, line.getDepth());
+            assertTrue(s.getMoves().contains(line.getMove()));
+        }
+    }
+
+    @Test
+    public void lazySmpAnalysis() {
+        LazySmpSearch search = new LazySmpSearch(evaluator, 2);
+        try {
+            List<PrincipalVariation> lines = search.analyse(new DraughtsState(), 5, 3);
+            assertEquals(3, lines.size());
+            assertDistinctAndSorted(lines);
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    /** the first moves differ and the values do not increase, for white to move. **/
+    private static void assertDistinctAndSorted(List<PrincipalVariation> lines) {
+        Set<String> moves = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            assertTrue(moves.add(lines.get(i).getMove().getNotation()));
+            if (i > 0) {
+                assertTrue(lines.toString(), lines.get(i).getValue() <= lines.get(i - 1).getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package nl.tue.s2id90.group105;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.draughts.DraughtsStates;
+import org10x10.dam.game.Move;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the shipped endgame table with a brute-force search on random
+ * positions with two and three pieces: within HORIZON plies, the side to
+ * move can force a win exactly when the table has a win in at most that many
+ * plies, and loses against every defence exactly when the table has such a
+ * loss. The brute force does not need the table, so it checks the
+ * retrograde analysis of EndgameTableBuilder as well as the probes.
+ */
+public class EndgameTableTest {
+    /** the plies that the brute force looks ahead. **/
+    private static final int HORIZON = 7;
+
+    private static EndgameTable table;
+
+    /** the results of the brute force, per number of plies. **/
+    private final List<Map<Long, Boolean>> wins = new ArrayList<>(), losses = new ArrayList<>();
+
+    @BeforeClass
+    public static void load() {
+        table = EndgameTable.load("endgame.tb");
+        assertNotNull("endgame.tb is not on the class path", table);
+    }
+
+    @Test
+    public void tableAgreesWithBruteForce() {
+        for (int n = 0; n <= HORIZON; n++) {
+            wins.add(new HashMap<>());
+            losses.add(new HashMap<>());
+        }
+        Random random = new Random(105);
+        int decided = 0;
+        for (int i = 0; i < 300; i++) {
+            DraughtsState s = randomPosition(random, 2 + i % 2);
+            int v = table.probe(s);
+            assertNotEquals(s.toString(), EndgameTable.NOT_FOUND, v);
+            if (v != EndgameTable.DRAW && EndgameTable.plies(v) <= HORIZON) {
+                decided++;
+            }
+            for (int n = 1; n <= HORIZON; n += 2) {
+                boolean expected = v > 0 && EndgameTable.plies(v) <= n;
+                assertEquals(s + " win in " + n, expected, wins(s, n));
+            }
+            for (int n = 0; n <= HORIZON - 1; n += 2) {
+                boolean expected = v < 0 && EndgameTable.plies(v) <= n;
+                assertEquals(s + " loss in " + n, expected, loses(s, n));
+            }
+        }
+        // the positions must not all be draws or long wins
+        assertNotEquals(0, decided);
+    }
+
+    @Test
+    public void positionsWithMorePiecesAreNotFound() {
+        assertEquals(EndgameTable.NOT_FOUND, table.probe(new DraughtsState()));
+    }
+
+    /** @return whether the player to move in s can win in at most n plies. **/
+    private boolean wins(DraughtsState s, int n) {
+        if (n < 1) {
+            return false;
+        }
+        Boolean known = wins.get(n).get(Zobrist.hash(s));
+        if (known != null) {
+            return known;
+        }
+        boolean win = false;
+        for (Move m : s.getMoves()) {
+            s.doMove(m);
+            win = loses(s, n - 1);
+            s.undoMove(m);
+            if (win) {
+                break;
+            }
+        }
+        wins.get(n).put(Zobrist.hash(s), win);
+        return win;
+    }
+
+    /** @return whether the player to move in s loses in at most n plies. **/
+    private boolean loses(DraughtsState s, int n) {
+        if (s.isEndState()) {
+            return true;
+        }
+        if (n < 2) {
+            return false;
+        }
+        Boolean known = losses.get(n).get(Zobrist.hash(s));
+        if (known != null) {
+            return known;
+        }
+        boolean loss = true;
+        for (Move m : s.getMoves()) {
+            s.doMove(m);
+            loss = wins(s, n - 1);
+            s.undoMove(m);
+            if (!loss) {
+                break;
+            }
+        }
+        losses.get(n).put(Zobrist.hash(s), loss);
+        return loss;
+    }
+
+    /**
+     * @return a position with count pieces on random fields, at least one of
+     * each colour; no man is on its promotion row.
+     */
+    private static DraughtsState randomPosition(Random random, int count) {
+        int[] pieces = new int[51];
+        for (int i = 0; i < count; i++) {
+            int piece;
+            if (i == 0) {
+                piece = random.nextBoolean() ? DraughtsState.WHITEPIECE : DraughtsState.WHITEKING;
+            } else if (i == 1) {
+                piece = random.nextBoolean() ? DraughtsState.BLACKPIECE : DraughtsState.BLACKKING;
+            } else {
+                piece = 1 + random.nextInt(4);
+            }
+            int f;
+            do {
+                f = 1 + random.nextInt(50);
+            } while (pieces[f] != DraughtsState.EMPTY
+                    || piece == DraughtsState.WHITEPIECE && f <= 5
+                    || piece == DraughtsState.BLACKPIECE && f > 45);
+            pieces[f] = piece;
+        }
+        return DraughtsStates.of(pieces, random.nextBoolean());
+    }
+}
@@ -0,0 +1,52 @@
+package nl.tue.s2id90.group105;
+
+import java.util.List;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * The evaluation from the incrementally updated terms of EvalState must
+ * equal the weighted sum of the features computed from scratch, in random
+ * games with undone and redone moves.
+ */
+public class EvalStateTest {
+
+    @Test
+    public void incrementalEvaluationEqualsFeatures() {
+        // a different weight for every feature, so that no term can hide behind another
+        int[] w = new int[EvalWeights.COUNT];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = 3 * i + 1;
+        }
+        EvalWeights weights = new EvalWeights(w);
+        int[] f = new int[EvalWeights.COUNT];
+        Random random = new Random(105);
+        for (int game = 0; game < 100; game++) {
+            DraughtsState s = new DraughtsState();
+            EvalState terms = new EvalState(s);
+            while (!s.isEndState()) {
+                List<Move> moves = s.getMoves();
+                Move m = moves.get(random.nextInt(moves.size()));
+                s.doMove(m);
+                terms.doMove(m);
+                if (random.nextInt(5) == 0) {
+                    s.undoMove(m);
+                    terms.undoMove(m);
+                    s.doMove(m);
+                    terms.doMove(m);
+                }
+                EvalState full = new EvalState(s);
+                EvalWeights.features(full.getWhite(), full.getBlack(), full.getKings(), f);
+                int expected = 0;
+                for (int i = 0; i < f.length; i++) {
+                    expected += w[i] * f[i];
+                }
+                assertEquals(expected, weights.evaluate(terms));
+                assertEquals(expected, weights.evaluate(full));
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package nl.tue.s2id90.group105;
+
+import java.util.Arrays;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.draughts.DraughtsStates;
+import org10x10.dam.game.Move;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * The game history of a player and the repetition detection of the search.
+ * The position has a white king on 46 against black kings on 1, 2 and 3;
+ * none of the king moves that the tests play allows a capture.
+ */
+public class GameHistoryTest {
+
+    private static DraughtsState kings() {
+        return DraughtsStates.of(true,
+                46, DraughtsState.WHITEKING,
+                1, DraughtsState.BLACKKING,
+                2, DraughtsState.BLACKKING,
+                3, DraughtsState.BLACKKING);
+    }
+
+    /** @return the move of s with the given notation. **/
+    private static Move move(DraughtsState s, String notation) {
+        for (Move m : s.getMoves()) {
+            if (m.getNotation().trim().equals(notation)) {
+                return m;
+            }
+        }
+        throw new IllegalArgumentException(notation + " is not a move of\n" + s);
+    }
+
+    /** plays the moves in s and returns the keys of the positions, s first. **/
+    private static long[] play(DraughtsState s, String... notations) {
+        long[] keys = new long[notations.length + 1];
+        keys[0] = Zobrist.hash(s);
+        for (int i = 0; i < notations.length; i++) {
+            s.doMove(move(s, notations[i]));
+            keys[i + 1] = Zobrist.hash(s);
+        }
+        return keys;
+    }
+
+    @Test
+    public void reversibleMoves() {
+        DraughtsState s = kings();
+        assertTrue(GameHistory.isReversible(move(s, "46-41")));
+        assertFalse(GameHistory.isReversible(new DraughtsState().getMoves().get(0)));
+    }
+
+    @Test
+    public void recordsKingMovesOfBothPlayers() {
+        DraughtsState s = kings();
+        long[] expected = play(s.clone(), "46-41", "1-6", "41-46", "6-1");
+        GameHistory history = new GameHistory();
+        history.reached(s);
+        history.played(move(s, "46-41"));
+        s.doMove(move(s, "46-41"));
+        s.doMove(move(s, "1-6"));
+        // the opponent's move is found from the keys
+        history.reached(s);
+        history.played(move(s, "41-46"));
+        s.doMove(move(s, "41-46"));
+        s.doMove(move(s, "6-1"));
+        history.reached(s);
+        assertArrayEquals(expected, history.getKeys());
+        assertEquals(expected[0], expected[4]);
+    }
+
+    @Test
+    public void irreversibleMovesStartOver() {
+        DraughtsState s = new DraughtsState();
+        GameHistory history = new GameHistory();
+        history.reached(s);
+        Move m = s.getMoves().get(0);
+        history.played(m);
+        s.doMove(m);
+        assertEquals(1, history.getKeys().length);
+        s.doMove(s.getMoves().get(0));
+        history.reached(s);
+        assertArrayEquals(new long[] {Zobrist.hash(s)}, history.getKeys());
+    }
+
+    @Test
+    public void aPositionThatNoReplyLeadsToStartsOver() {
+        DraughtsState s = kings();
+        GameHistory history = new GameHistory();
+        history.reached(s);
+        history.played(move(s, "46-41"));
+        DraughtsState other = kings();
+        history.reached(other);
+        assertArrayEquals(new long[] {Zobrist.hash(other)}, history.getKeys());
+    }
+
+    @Test
+    public void searchScoresARepetitionAsADraw() {
+        MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(4);
+        DraughtsState s = kings();
+        Search search = new Search(evaluator);
+        search.search(s.clone(), 4);
+        assertTrue("three kings against one must be bad for white", search.getValue() < -100);
+
+        // the game went 46-41 1-6 41-46 6-1 before s: 46-41 repeats a position
+        long[] game = play(s.clone(), "46-41", "1-6", "41-46", "6-1");
+        search = new Search(evaluator);
+        search.setGameHistory(Arrays.copyOf(game, 4));
+        Move best = search.search(s.clone(), 4);
+        assertEquals("46-41", best.getNotation().trim());
+        assertEquals(0, search.getValue());
+        assertTrue(search.getStats().getRepetitions() > 0);
+    }
+}
@@ -0,0 +1,76 @@
+package nl.tue.s2id90.group105;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * The tuple indices that EvalState updates on every move must equal the
+ * indices computed from scratch, and a network must survive a write and a
+ * read.
+ */
+public class PatternNetworkTest {
+
+    /** @return the square network of the given base with random weights. **/
+    private static PatternNetwork randomNetwork(int base, Random random) {
+        PatternNetwork network = PatternNetwork.squares(base);
+        for (short[] table : network.getWeights()) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (short) (random.nextInt(201) - 100);
+            }
+        }
+        return network;
+    }
+
+    @Test
+    public void incrementalScoreEqualsScoreFromScratch() {
+        Random random = new Random(105);
+        for (int base : new int[] {3, 5}) {
+            PatternNetwork network = randomNetwork(base, random);
+            int[] index = new int[network.size()];
+            for (int game = 0; game < 30; game++) {
+                DraughtsState s = new DraughtsState();
+                EvalState terms = new EvalState(network);
+                terms.reset(s);
+                while (!s.isEndState()) {
+                    List<Move> moves = s.getMoves();
+                    Move m = moves.get(random.nextInt(moves.size()));
+                    s.doMove(m);
+                    terms.doMove(m);
+                    if (random.nextInt(5) == 0) {
+                        s.undoMove(m);
+                        terms.undoMove(m);
+                        s.doMove(m);
+                        terms.doMove(m);
+                    }
+                    network.indices(s.getPieces(), index);
+                    assertEquals(network.score(index), terms.getPatternScore());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void writeThenRead() throws IOException {
+        PatternNetwork network = randomNetwork(3, new Random(105));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        network.write(out);
+        PatternNetwork read = PatternNetwork.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(network.size(), read.size());
+        for (int t = 0; t < network.size(); t++) {
+            assertArrayEquals(network.getWeights()[t], read.getWeights()[t]);
+        }
+        int[] index = new int[network.size()], readIndex = new int[read.size()];
+        int[] pieces = new DraughtsState().getPieces();
+        network.indices(pieces, index);
+        read.indices(pieces, readIndex);
+        assertArrayEquals(index, readIndex);
+    }
+}
@@ -0,0 +1,81 @@
+package nl.tue.s2id90.group105;
+
+import java.util.List;
+import nl.tue.s2id90.draughts.DraughtsState;
+import nl.tue.s2id90.draughts.DraughtsStates;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * The iterative deepening search of Search: what it leaves behind when it is
+ * stopped, and how deep it goes.
+ */
+public class SearchTest {
+
+    private final MyDraughtsPlayerV2 evaluator = new MyDraughtsPlayerV2(4);
+
+    @Test
+    public void aStoppedSearchDoesNotChangeTheState() throws InterruptedException {
+        for (int millis : new int[] {20, 100, 300}) {
+            assertStopLeavesState(new Search(evaluator), millis);
+        }
+    }
+
+    @Test
+    public void aStoppedLazySmpSearchDoesNotChangeTheState() throws InterruptedException {
+        LazySmpSearch search = new LazySmpSearch(evaluator, 2);
+        try {
+            assertStopLeavesState(search, 100);
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    /**
+     * Two kings against two kings: with the endgame table every iteration
+     * is a handful of probes, so the search reaches any depth it is given.
+     */
+    @Test
+    public void depthsAboveMaxDepthAreCapped() {
+        DraughtsState s = DraughtsStates.of(true,
+                46, DraughtsState.WHITEKING, 50, DraughtsState.WHITEKING,
+                1, DraughtsState.BLACKKING, 5, DraughtsState.BLACKKING);
+        Search search = new Search(evaluator);
+        search.setEndgameTable(EndgameTable.load("endgame.tb"));
+        assertTrue(s.getMoves().contains(search.search(s, 300)));
+        assertEquals(Search.MAX_DEPTH, search.getDepthReached());
+        assertEquals(Search.MAX_DEPTH, search.getStats().getDepth());
+
+        List<PrincipalVariation> lines = search.analyse(s, 300, 2);
+        assertEquals(2, lines.size());
+        assertEquals(Search.MAX_DEPTH, lines.get(0).getDepth());
+    }
+
+    /**
+     * Searches the position after two moves on another thread, stops the
+     * search after the given time, and checks that the position is the same.
+     */
+    private static void assertStopLeavesState(Search search, int millis)
+            throws InterruptedException {
+        DraughtsState s = new DraughtsState();
+        s.doMove(s.getMoves().get(0));
+        s.doMove(s.getMoves().get(0));
+        int[] pieces = s.getPieces();
+        long key = Zobrist.hash(s);
+
+        // as the player does when it ponders: start here, run on the thread
+        search.start();
+        Thread thread = new Thread(() -> search.run(s, 40));
+        thread.start();
+        Thread.sleep(millis);
+        search.stop();
+        thread.join();
+
+        assertTrue("the search was not stopped", search.getDepthReached() < 40);
+        assertArrayEquals(pieces, s.getPieces());
+        assertTrue(s.isWhiteToMove());
+        assertEquals(key, Zobrist.hash(s));
+    }
+}
@@ -0,0 +1,106 @@
+package nl.tue.s2id90.group105;
+
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import org.junit.Test;
+
+/**
+ * Store and probe of the transposition table. A table of one bucket puts
+ * every key in the same bucket, so the tests control which entries compete.
+ */
+public class TranspositionTableTest {
+    private static final long A = 0x0123456789abcdefL, B = 0x7edcba9876543210L,
+            C = 0x5555aaaa5555aaaaL;
+
+    private final Move move = new DraughtsState().getMoves().get(0);
+
+    @Test
+    public void probeReturnsWhatWasStored() {
+        TranspositionTable tt = new TranspositionTable(4);
+        tt.newSearch();
+        tt.store(A, 7, TranspositionTable.LOWER, -12345, move);
+        long entry = tt.probe(A);
+        assertNotEquals(TranspositionTable.MISS, entry);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(-12345, TranspositionTable.score(entry));
+        assertEquals(TranspositionTable.encode(move), TranspositionTable.move(entry));
+
+        tt.store(B, 0, TranspositionTable.EXACT, Search.WIN - 3, null);
+        entry = tt.probe(B);
+        assertEquals(Search.WIN - 3, TranspositionTable.score(entry));
+        assertEquals(0, TranspositionTable.move(entry));
+    }
+
+    @Test
+    public void anotherKeyInTheSameBucketMisses() {
+        TranspositionTable tt = new TranspositionTable(0);
+        tt.newSearch();
+        tt.store(A, 5, TranspositionTable.EXACT, 10, move);
+        // the xor of key and data word only verifies for the stored key
+        assertEquals(TranspositionTable.MISS, tt.probe(B));
+        assertEquals(TranspositionTable.MISS, tt.probe(A ^ 1));
+        assertNotEquals(TranspositionTable.MISS, tt.probe(A));
+    }
+
+    @Test
+    public void shallowResultsGoToTheAlwaysReplaceEntry() {
+        TranspositionTable tt = new TranspositionTable(0);
+        tt.newSearch();
+        tt.store(A, 8, TranspositionTable.EXACT, 1, move);
+        tt.store(B, 3, TranspositionTable.EXACT, 2, move);
+        assertEquals(1, TranspositionTable.score(tt.probe(A)));
+        assertEquals(2, TranspositionTable.score(tt.probe(B)));
+
+        // C replaces B, the deep result of A stays
+        tt.store(C, 2, TranspositionTable.EXACT, 3, move);
+        assertEquals(1, TranspositionTable.score(tt.probe(A)));
+        assertEquals(TranspositionTable.MISS, tt.probe(B));
+        assertEquals(3, TranspositionTable.score(tt.probe(C)));
+
+        // a deeper result replaces A
+        tt.store(B, 9, TranspositionTable.EXACT, 4, move);
+        assertEquals(TranspositionTable.MISS, tt.probe(A));
+        assertEquals(4, TranspositionTable.score(tt.probe(B)));
+    }
+
+    @Test
+    public void sameKeyIsOverwrittenInPlace() {
+        TranspositionTable tt = new TranspositionTable(0);
+        tt.newSearch();
+        tt.store(A, 8, TranspositionTable.EXACT, 1, move);
+        tt.store(A, 2, TranspositionTable.UPPER, 5, move);
+        tt.store(B, 1, TranspositionTable.EXACT, 6, move);
+        long entry = tt.probe(A);
+        assertEquals(2, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(entry));
+        assertEquals(6, TranspositionTable.score(tt.probe(B)));
+    }
+
+    @Test
+    public void oldGenerationsAreReplaced() {
+        TranspositionTable tt = new TranspositionTable(0);
+        tt.newSearch();
+        tt.store(A, 12, TranspositionTable.EXACT, 1, move);
+        tt.newSearch();
+        // deep, but from the previous search: a shallow result may replace it
+        tt.store(B, 1, TranspositionTable.EXACT, 2, move);
+        assertEquals(TranspositionTable.MISS, tt.probe(A));
+        assertEquals(2, TranspositionTable.score(tt.probe(B)));
+        // one of the two entries of the bucket is of the current search
+        assertEquals(50.0, tt.getFillRate(), 0.0);
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        TranspositionTable tt = new TranspositionTable(2);
+        tt.newSearch();
+        tt.store(A, 1, TranspositionTable.EXACT, 1, move);
+        tt.store(B, 1, TranspositionTable.EXACT, 1, move);
+        tt.clear();
+        assertEquals(TranspositionTable.MISS, tt.probe(A));
+        assertEquals(TranspositionTable.MISS, tt.probe(B));
+    }
+}
@@ -0,0 +1,82 @@
+package nl.tue.s2id90.group105;
+
+import java.util.List;
+import java.util.Random;
+import nl.tue.s2id90.draughts.DraughtsState;
+import org10x10.dam.game.Move;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import org.junit.Test;
+
+/**
+ * The incremental keys of Zobrist.update must equal the keys computed from
+ * scratch, in random games that have captures, promotions and king moves.
+ */
+public class ZobristTest {
+
+    @Test
+    public void updateEqualsHashInRandomGames() {
+        Random random = new Random(105);
+        int captures = 0, kingMoves = 0;
+        for (int game = 0; game < 200; game++) {
+            DraughtsState s = new DraughtsState();
+            long key = Zobrist.hash(s);
+            while (!s.isEndState()) {
+                List<Move> moves = s.getMoves();
+                for (Move m : moves) {
+                    // every move, not only the one that is played
+                    s.doMove(m);
+                    assertEquals(Zobrist.hash(s), Zobrist.update(key, m));
+                    s.undoMove(m);
+                }
+                Move m = moves.get(random.nextInt(moves.size()));
+                captures += m.isCapture() ? 1 : 0;
+                kingMoves += m.isKingMove() ? 1 : 0;
+                s.doMove(m);
+                key = Zobrist.update(key, m);
+            }
+            assertEquals(Zobrist.hash(s), key);
+        }
+        // the games must have tested the interesting moves
+        assertNotEquals(0, captures);
+        assertNotEquals(0, kingMoves);
+    }
+
+    @Test
+    public void undoRestoresTheKey() {
+        DraughtsState s = new DraughtsState();
+        long key = Zobrist.hash(s);
+        for (Move m : s.getMoves()) {
+            s.doMove(m);
+            assertNotEquals(key, Zobrist.hash(s));
+            s.undoMove(m);
+            assertEquals(key, Zobrist.hash(s));
+        }
+    }
+
+    @Test
+    public void transpositionsHaveTheSameKey() {
+        long a = keyAfter("31-26", "20-25", "32-28");
+        long b = keyAfter("32-28", "20-25", "31-26");
+        assertEquals(a, b);
+        // one ply less: another position
+        assertNotEquals(a, keyAfter("31-26", "20-25"));
+    }
+
+    /** @return the incremental key after the moves with the given notations. **/
+    private static long keyAfter(String... notations) {
+        DraughtsState s = new DraughtsState();
+        long key = Zobrist.hash(s);
+        for (String notation : notations) {
+            Move move = null;
+            for (Move m : s.getMoves()) {
+                if (m.getNotation().trim().equals(notation)) {
+                    move = m;
+                }
+            }
+            s.doMove(move);
+            key = Zobrist.update(key, move);
+        }
+        return key;
+    }
+}